@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import snap.dryrun.ScriptedWebDriver;
+import snap.utilities.CommonMethods;
+
+/**
+ * Measures {@link CommonMethods#compareImages} on identical images, its worst case, at common
+ * screenshot resolutions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompareImagesBenchmark {
+
+    @Param({ "640x480", "1280x720", "1920x1080" })
+    public String resolution;
+
+    private CommonMethods common;
+    private BufferedImage first;
+    private BufferedImage second;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] size = resolution.split("x");
+        byte[] png = ScriptedWebDriver.renderPng(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        first = ImageIO.read(new ByteArrayInputStream(png));
+        second = ImageIO.read(new ByteArrayInputStream(png));
+        common = new CommonMethods(null, null);
+    }
+
+    @Benchmark
+    public boolean compareIdenticalImages() {
+        return common.compareImages(first, second);
+    }
+}
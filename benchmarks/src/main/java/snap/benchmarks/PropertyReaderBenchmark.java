@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import snap.utilities.ConfigReader;
+import snap.utilities.DataReader;
+
+/**
+ * Measures the cost of reading a single configuration or test data value, which currently loads
+ * the whole properties file on every call. Run from the project root so the files resolve.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyReaderBenchmark {
+
+    @Benchmark
+    public String configReaderGetValue() {
+        return ConfigReader.getValue("url");
+    }
+
+    @Benchmark
+    public String dataReaderGetValue() {
+        return DataReader.getValue("HomePageTitle");
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import snap.utilities.RandomStringGenerator;
+
+/**
+ * Measures random string generation alone and with many threads sharing the generator's
+ * SecureRandom, as happens when parallel tests create their test data at the same time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RandomStringBenchmark {
+
+    private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+
+    @Param({ "8", "64" })
+    public int length;
+
+    @Benchmark
+    @Threads(1)
+    public String singleThread() {
+        return RandomStringGenerator.generateRandomString(CHARACTERS, length);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String contended() {
+        return RandomStringGenerator.generateRandomString(CHARACTERS, length);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.OutputType;
+import snap.dryrun.ScriptedWebDriver;
+import snap.listeners.ReportListeners;
+import snap.utilities.WebDriverMgr;
+
+/**
+ * Measures step logging and screenshot handling of {@link ReportListeners} against an in-memory
+ * driver, so the numbers contain only Extent logging, file writes and Base64 encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReportingBenchmark {
+
+    @Param({ "1280x720", "1920x1080" })
+    public String resolution;
+
+    private ScriptedWebDriver driver;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] size = resolution.split("x");
+        driver = new ScriptedWebDriver("Benchmark", Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        new File("./Screenshots").mkdirs();
+        WebDriverMgr.setWebDriver(driver);
+        ReportListeners.startTest("ReportingBenchmark " + resolution);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ReportListeners.endTest();
+        WebDriverMgr.removeWebDriver();
+    }
+
+    @Benchmark
+    public void logStep() {
+        ReportListeners.logStep("Clicked on Button: SUBMIT");
+    }
+
+    @Benchmark
+    public void logScreenshotStep() {
+        ReportListeners.logScreenshotStep("verification screenshot 'SUBMIT' is present or not!");
+    }
+
+    @Benchmark
+    public String encodeScreenshotBase64() {
+        return driver.getScreenshotAs(OutputType.BASE64);
+    }
+}
@@ -38,6 +38,12 @@ public class CommonConstants {
     private static final String EXTENT_REPORT_FILE_PATH = PROJECT_DIRECTORY + "\\Reports\\";
     private static final String APP_TEST_DATA_PATH = RESOURCES_FILE_PATH + "\\testdata";
     private static final String SCREENSHOT_FILE_NAME = "Screenshot_" + DATE_TIME_STAMP + ".png";
+    private static final String ALLURE_RESULTS_PATH = PROJECT_DIRECTORY + "\\allure-results";
+    private static final String ANALYTICS_INDEX_FILE_PATH = PROJECT_DIRECTORY + "\\.analytics\\results.idx";
+    private static final String NETWORK_ARCHIVE_PATH = PROJECT_DIRECTORY + "\\.replay\\";
+    private static final String CHROME_PROFILES_PATH = PROJECT_DIRECTORY + "\\.profiles\\";
+    private static final String ASSET_SIZES_FILE_PATH = PROJECT_DIRECTORY + "\\.analytics\\asset-sizes.properties";
+    private static final String DRIVER_CACHE_PATH = PROJECT_DIRECTORY + "\\.drivers\\";
 
     /**
      * Returns the file path for storing screenshots.
@@ -137,4 +143,58 @@ public class CommonConstants {
     public static String getAppTestDataPath() {
         return APP_TEST_DATA_PATH;
     }
-}
+
+    /**
+     * Returns the directory where Allure writes its result files.
+     *
+     * @return the Allure results path
+     */
+    public static String getAllureResultsPath() {
+        return ALLURE_RESULTS_PATH;
+    }
+
+    /**
+     * Returns the file path of the cross-run analytics index built from Allure results.
+     *
+     * @return the analytics index file path
+     */
+    public static String getAnalyticsIndexFilePath() {
+        return ANALYTICS_INDEX_FILE_PATH;
+    }
+
+    /**
+     * Returns the directory holding the recorded network archives.
+     *
+     * @return the network archive path
+     */
+    public static String getNetworkArchivePath() {
+        return NETWORK_ARCHIVE_PATH;
+    }
+
+    /**
+     * Returns the directory holding the Chrome profile template and the per-session clones.
+     *
+     * @return the Chrome profiles path
+     */
+    public static String getChromeProfilesPath() {
+        return CHROME_PROFILES_PATH;
+    }
+
+    /**
+     * Returns the file path of the known asset sizes used to estimate what request blocking saves.
+     *
+     * @return the asset sizes file path
+     */
+    public static String getAssetSizesFilePath() {
+        return ASSET_SIZES_FILE_PATH;
+    }
+
+    /**
+     * Returns the directory caching the resolved browser driver binaries.
+     *
+     * @return the driver cache path
+     */
+    public static String getDriverCachePath() {
+        return DRIVER_CACHE_PATH;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.testng.annotations.DataProvider;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import snap.constants.CommonConstants;
+import snap.utilities.ConfigReader;
+
+/**
+ * TestNG data provider streaming the rows of CSV and XLSX files, for data-driven tests running
+ * their rows in parallel.
+ * <p>
+ * Rows are read lazily: a reader thread parses the file, CSV with a buffered reader and XLSX with
+ * the POI event model, and hands rows over through a queue of {@code data_queue_capacity} rows,
+ * so a sheet is never loaded into memory as a whole. The first row holds the column names; every
+ * following row is passed to the test as a {@code Map<String, String>} of column name to value.
+ * <p>
+ * Large files can be split across agents without any coordination: with
+ * {@code data_partition_count=n}, an agent configured with {@code data_partition_index=i} only
+ * runs the rows whose position modulo n is i.
+ * <p>
+ * Usage:
+ * <pre>
+ * &#64;Test(dataProvider = "dataFile", dataProviderClass = StreamingDataProvider.class)
+ * &#64;DataFile("fill_form_users.csv")
+ * public void TC_FillFormTest(Map&lt;String, String&gt; row) { ... }
+ * </pre>
+ */
+public class StreamingDataProvider {
+
+    private static final int QUEUE_CAPACITY =
+            Math.max(1, Integer.parseInt(ConfigReader.getValue("data_queue_capacity", "256")));
+    private static final int PARTITION_COUNT =
+            Math.max(1, Integer.parseInt(ConfigReader.getValue("data_partition_count", "1")));
+    private static final int PARTITION_INDEX = Integer.parseInt(ConfigReader.getValue("data_partition_index", "0"));
+
+    // Marks the end of the rows in the queue
+    private static final Object[] END = new Object[0];
+
+    /**
+     * Provides the rows of the file named by the {@link DataFile} annotation of the test method.
+     * The rows run in parallel, on up to {@code data-provider-thread-count} threads of the suite.
+     *
+     * @param method the test method
+     * @return the rows of this agent's partition, one map of column name to value per row
+     */
+    @DataProvider(name = "dataFile", parallel = true)
+    public static Iterator<Object[]> dataFile(Method method) {
+        DataFile dataFile = method.getAnnotation(DataFile.class);
+        if (dataFile == null) {
+            throw new IllegalArgumentException("Test method " + method.getName() + " has no @DataFile annotation");
+        }
+        return rows(resolve(dataFile.value()), dataFile.sheet());
+    }
+
+    /**
+     * Streams the rows of a CSV or XLSX file, chosen by its extension.
+     *
+     * @param filePath  the path of the file
+     * @param sheetName the XLSX sheet to read, or an empty string for the first sheet
+     * @return the rows of this agent's partition, one map of column name to value per row
+     */
+    public static Iterator<Object[]> rows(String filePath, String sheetName) {
+        Path file = Paths.get(filePath);
+        String name = file.getFileName().toString().toLowerCase();
+        if (!name.endsWith(".csv") && !name.endsWith(".xlsx")) {
+            throw new IllegalArgumentException("Unsupported test data file, expected .csv or .xlsx: " + filePath);
+        }
+        RowQueue rows = new RowQueue(filePath);
+        Thread reader = new Thread(() -> {
+            try {
+                if (name.endsWith(".csv")) {
+                    readCsv(file, rows);
+                } else {
+                    readXlsx(file, sheetName, rows);
+                }
+            } catch (StopReading e) {
+                // The test run was interrupted, nobody is reading the rows any more
+            } catch (Exception e) {
+                rows.failure = e;
+            } finally {
+                rows.finish();
+            }
+        }, "data-reader-" + file.getFileName());
+        reader.setDaemon(true);
+        reader.start();
+        System.out.println("Streaming test data from " + filePath
+                + (PARTITION_COUNT > 1 ? " (partition " + PARTITION_INDEX + " of " + PARTITION_COUNT + ")" : ""));
+        return rows;
+    }
+
+    /**
+     * Returns the position of a streamed row among the rows this provider handed to its test, the
+     * invocation number TestNG uses to run that row again.
+     *
+     * @param parameters the parameters of a test invocation
+     * @return the row position, or null if the invocation did not get its row from this provider
+     */
+    public static Integer rowIndexOf(Object[] parameters) {
+        return parameters.length == 1 && parameters[0] instanceof Row ? ((Row) parameters[0]).index : null;
+    }
+
+    private static String resolve(String filePath) {
+        return Paths.get(filePath).isAbsolute() ? filePath : CommonConstants.getAppTestDataPath() + "\\" + filePath;
+    }
+
+    /**
+     * Reads a CSV file as defined by RFC 4180: quoted cells may contain commas, line breaks and
+     * doubled quotes.
+     */
+    private static void readCsv(Path file, RowQueue rows) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            parseCsv(reader, rows::accept);
+        }
+    }
+
+    /**
+     * Parses CSV as written by spreadsheet applications: quoted cells may hold commas, line breaks
+     * and doubled quotes, lines end with CRLF, LF or CR, and a leading byte order mark is skipped.
+     *
+     * @param reader the CSV text
+     * @param rows   receives the cells of every line, including blank ones
+     * @throws IOException if the text cannot be read
+     */
+    static void parseCsv(BufferedReader reader, Consumer<List<String>> rows) throws IOException {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        int c = reader.read();
+        // Skip the byte order mark written by spreadsheet applications
+        if (c == '\uFEFF') {
+            c = reader.read();
+        }
+        for (; c != -1; c = reader.read()) {
+            if (quoted) {
+                if (c != '"') {
+                    cell.append((char) c);
+                    continue;
+                }
+                reader.mark(1);
+                if (reader.read() == '"') {
+                    cell.append('"');
+                } else {
+                    reader.reset();
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                cells.add(cell.toString());
+                cell.setLength(0);
+                rows.accept(cells);
+                cells = new ArrayList<>();
+            } else {
+                cell.append((char) c);
+            }
+        }
+        if (cell.length() > 0 || !cells.isEmpty()) {
+            cells.add(cell.toString());
+            rows.accept(cells);
+        }
+    }
+
+    /**
+     * Reads a sheet of an XLSX file with the POI event model, which parses the sheet XML as a
+     * stream instead of building the workbook in memory. Cell values are formatted as Excel shows
+     * them.
+     */
+    private static void readXlsx(Path file, String sheetName, RowQueue rows) throws Exception {
+        try (OPCPackage workbook = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(workbook);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(workbook);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheet = sheets.next()) {
+                    if (sheetName.isEmpty() || sheetName.equals(sheets.getSheetName())) {
+                        XMLReader parser = XMLHelper.newXMLReader();
+                        parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), null, strings,
+                                new SheetRows(rows), new DataFormatter(), false));
+                        parser.parse(new InputSource(sheet));
+                        return;
+                    }
+                }
+            }
+        }
+        throw new IllegalArgumentException("Sheet '" + sheetName + "' not found in " + file);
+    }
+
+    /**
+     * Collects the cells of each sheet row, filling the gaps the sheet XML leaves for empty cells.
+     */
+    private static final class SheetRows implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowQueue rows;
+        private final List<String> cells = new ArrayList<>();
+
+        private SheetRows(RowQueue rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            rows.accept(new ArrayList<>(cells));
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? cells.size() : new CellReference(cellReference).getCol();
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            cells.add(formattedValue == null ? "" : formattedValue);
+        }
+    }
+
+    /**
+     * The rows handed from the reader thread to TestNG. The reader blocks while the queue is full,
+     * so it never gets more than {@code data_queue_capacity} rows ahead.
+     */
+    private static final class RowQueue implements Iterator<Object[]> {
+        private final String filePath;
+        private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private List<String> header;
+        private long position;
+        private int provided;
+        private volatile Exception failure;
+        private Object[] next;
+
+        private RowQueue(String filePath) {
+            this.filePath = filePath;
+        }
+
+        /**
+         * Takes a parsed row on the reader thread: the first non-blank row is the header, the
+         * others are queued when they belong to this agent's partition.
+         */
+        private void accept(List<String> cells) {
+            if (cells.stream().allMatch(String::isEmpty)) {
+                return;
+            }
+            if (header == null) {
+                header = new ArrayList<>();
+                cells.forEach(cell -> header.add(cell.trim()));
+                return;
+            }
+            if (position++ % PARTITION_COUNT != PARTITION_INDEX) {
+                return;
+            }
+            Row row = new Row(provided++);
+            for (int column = 0; column < header.size(); column++) {
+                row.put(header.get(column), column < cells.size() ? cells.get(column) : "");
+            }
+            put(new Object[] { row });
+        }
+
+        private void finish() {
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void put(Object[] row) {
+            try {
+                queue.put(row);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StopReading();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    next = END;
+                }
+            }
+            if (next == END && failure != null) {
+                Exception cause = failure;
+                failure = null;
+                throw new IllegalStateException("Unable to read test data from " + filePath, cause);
+            }
+            return next != END;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = next;
+            next = null;
+            return row;
+        }
+    }
+
+    /**
+     * A row passed to the test, remembering its position for reruns of failed rows.
+     */
+    private static final class Row extends LinkedHashMap<String, String> {
+        private final int index;
+
+        private Row(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * Stops the reader thread when it is interrupted while handing over a row.
+     */
+    private static final class StopReading extends RuntimeException {
+        private StopReading() {
+            super(null, null, false, false);
+        }
+    }
+}
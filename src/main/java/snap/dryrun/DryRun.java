@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.dryrun;
+
+import snap.utilities.ConfigReader;
+
+public class DryRun {
+
+    // Read once; the mode cannot change during a run
+    private static final boolean ENABLED = Boolean.parseBoolean(ConfigReader.getValue("dry_run", "false"));
+    private static final long LATENCY_MILLIS = Long.parseLong(ConfigReader.getValue("dry_run_latency_ms", "0"));
+
+    /**
+     * Returns whether the run uses the in-memory driver and fixture instead of a browser and a
+     * live Appian site. Enabled with {@code dry_run=true} in config.properties.
+     *
+     * @return true if the run is a dry run
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Simulates the configured Appian round-trip latency ({@code dry_run_latency_ms}).
+     */
+    public static void simulateLatency() {
+        if (LATENCY_MILLIS <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(LATENCY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
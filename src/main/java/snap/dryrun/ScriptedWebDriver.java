@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.dryrun;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WindowType;
+
+/**
+ * In-memory WebDriver returning canned page state, used for dry runs and benchmarks.
+ * <p>
+ * Every locator resolves to a visible, enabled element, the page title comes from the
+ * {@code HomePageTitle} test data so login verification passes, and screenshots are a PNG rendered
+ * once per driver. No browser or network is involved, so a run measures framework overhead only.
+ */
+public class ScriptedWebDriver implements WebDriver, TakesScreenshot, JavascriptExecutor {
+
+    private final byte[] screenshotPng;
+    private final String title;
+    private final Map<By, ScriptedWebElement> elements = new ConcurrentHashMap<>();
+    private volatile String currentUrl = "about:blank";
+
+    /**
+     * Creates a driver with 1280x720 screenshots and the given page title.
+     *
+     * @param title the title returned for every page
+     */
+    public ScriptedWebDriver(String title) {
+        this(title, 1280, 720);
+    }
+
+    /**
+     * Creates a driver with the given page title and screenshot size.
+     *
+     * @param title  the title returned for every page
+     * @param width  the screenshot width in pixels
+     * @param height the screenshot height in pixels
+     */
+    public ScriptedWebDriver(String title, int width, int height) {
+        this.title = title;
+        this.screenshotPng = renderPng(width, height);
+    }
+
+    /**
+     * Renders a PNG with some structure so its encoded size resembles a real page screenshot.
+     *
+     * @param width  the image width in pixels
+     * @param height the image height in pixels
+     * @return the PNG bytes
+     */
+    public static byte[] renderPng(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+        graphics.setColor(Color.DARK_GRAY);
+        for (int y = 20; y < height; y += 24) {
+            graphics.drawString("Appian record row " + y + " - lorem ipsum dolor sit amet", 16, y);
+        }
+        graphics.dispose();
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <X> X getScreenshotAs(OutputType<X> target) {
+        return target.convertFromPngBytes(screenshotPng);
+    }
+
+    @Override
+    public void get(String url) {
+        currentUrl = url;
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return currentUrl;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return Collections.singletonList(findElement(by));
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        return elements.computeIfAbsent(by, locator -> new ScriptedWebElement(this, locator));
+    }
+
+    @Override
+    public String getPageSource() {
+        return "<html><head><title>" + title + "</title></head><body></body></html>";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void quit() {
+        elements.clear();
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return Collections.singleton(getWindowHandle());
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return "scripted-window";
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        return new ScriptedTargetLocator();
+    }
+
+    @Override
+    public Navigation navigate() {
+        return noOp(Navigation.class);
+    }
+
+    @Override
+    public Options manage() {
+        return noOp(Options.class);
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        return null;
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        return null;
+    }
+
+    /**
+     * Creates a proxy for a driver option interface whose methods do nothing. Methods returning
+     * another option interface return a no-op proxy of that interface, so chained calls such as
+     * {@code manage().timeouts().implicitlyWait(...)} work.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T noOp(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            Class<?> returnType = method.getReturnType();
+            if (returnType == boolean.class) {
+                return false;
+            } else if (returnType.isPrimitive() && returnType != void.class) {
+                return 0;
+            } else if (returnType.isInterface() && returnType.getName().startsWith("org.openqa.selenium")) {
+                return noOp(returnType);
+            } else if (returnType == Set.class) {
+                return Collections.emptySet();
+            }
+            return null;
+        });
+    }
+
+    private class ScriptedTargetLocator implements TargetLocator {
+
+        @Override
+        public WebDriver frame(int index) {
+            return ScriptedWebDriver.this;
+        }
+
+        @Override
+        public WebDriver frame(String nameOrId) {
+            return ScriptedWebDriver.this;
+        }
+
+        @Override
+        public WebDriver frame(WebElement frameElement) {
+            return ScriptedWebDriver.this;
+        }
+
+        @Override
+        public WebDriver parentFrame() {
+            return ScriptedWebDriver.this;
+        }
+
+        @Override
+        public WebDriver window(String nameOrHandle) {
+            return ScriptedWebDriver.this;
+        }
+
+        @Override
+        public WebDriver newWindow(WindowType typeHint) {
+            return ScriptedWebDriver.this;
+        }
+
+        @Override
+        public WebDriver defaultContent() {
+            return ScriptedWebDriver.this;
+        }
+
+        @Override
+        public WebElement activeElement() {
+            return findElement(By.tagName("body"));
+        }
+
+        @Override
+        public Alert alert() {
+            throw new NoAlertPresentException("The scripted driver never shows alerts");
+        }
+    }
+}
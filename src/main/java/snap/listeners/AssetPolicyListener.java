@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.listeners;
+
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestContext;
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import snap.network.AssetPolicy;
+
+public class AssetPolicyListener implements IInvokedMethodListener, ITestListener {
+
+    /**
+     * Applies the asset policy of the test's groups to the session created by its
+     * {@code @BeforeMethod}, just before the test method runs.
+     *
+     * @param method     the method about to be invoked
+     * @param testResult the result of the invocation
+     */
+    @Override
+    public void beforeInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            String policy = AssetPolicy.beginTest(method.getTestMethod().getGroups());
+            if (policy != null) {
+                System.out.println("Asset policy '" + policy + "' applied.");
+            }
+        }
+    }
+
+    /**
+     * Logs the requests, bytes and blocked resources of the test method that just ran.
+     *
+     * @param method     the method that was invoked
+     * @param testResult the result of the invocation
+     */
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (method.isTestMethod()) {
+            String summary = AssetPolicy.endTest();
+            if (summary != null) {
+                ReportListeners.logStep(summary);
+            }
+        }
+    }
+
+    @Override
+    public void onFinish(ITestContext context) {
+        AssetPolicy.saveAssetSizes();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.listeners;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.testng.IAlterSuiteListener;
+import org.testng.ITestResult;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import snap.utilities.ConfigReader;
+
+public class BrowserMatrixListener implements IAlterSuiteListener {
+
+    // browserOf runs for every test result, so the matrix is parsed once
+    private static final List<String> BROWSERS = Collections.unmodifiableList(
+            Arrays.stream(ConfigReader.getValue("browser_matrix", "").split(","))
+                    .map(browser -> browser.trim().toLowerCase()).filter(browser -> !browser.isEmpty())
+                    .collect(Collectors.toList()));
+
+    /**
+     * Expands every {@code <test>} of the suite into one copy per browser listed in
+     * {@code browser_matrix} (for example {@code chrome,edge,firefox-headless}), each with its
+     * {@code browser} parameter set. The copies run concurrently; each keeps its methods parallel
+     * with a thread count capped by {@code browser_limit.<browser>}.
+     *
+     * @param suites the suites about to run
+     */
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        List<String> browsers = BROWSERS;
+        if (browsers.isEmpty()) {
+            return;
+        }
+        for (XmlSuite suite : suites) {
+            List<XmlTest> expanded = new ArrayList<>();
+            for (XmlTest original : new ArrayList<>(suite.getTests())) {
+                for (String browser : browsers) {
+                    expanded.add(copyFor(original, browser));
+                }
+            }
+            suite.setTests(expanded);
+            suite.setParallel(XmlSuite.ParallelMode.TESTS);
+            suite.setThreadCount(expanded.size());
+            System.out.println("Browser matrix: " + expanded.size() + " test units across " + browsers);
+        }
+    }
+
+    /**
+     * Returns the matrix browser a test result belongs to.
+     *
+     * @param result the test result
+     * @return the browser, or null when the matrix mode is off
+     */
+    public static String browserOf(ITestResult result) {
+        if (BROWSERS.isEmpty()) {
+            return null;
+        }
+        return result.getTestContext().getCurrentXmlTest().getParameter("browser");
+    }
+
+    private static XmlTest copyFor(XmlTest original, String browser) {
+        XmlTest copy = (XmlTest) original.clone();
+        copy.setName(original.getName() + " [" + browser + "]");
+
+        Map<String, String> parameters = new HashMap<>(original.getLocalParameters());
+        parameters.put("browser", browser);
+        copy.setParameters(parameters);
+
+        // clone() leaves out the classes; copy them so every unit runs the same methods
+        List<XmlClass> classes = new ArrayList<>();
+        for (XmlClass xmlClass : original.getXmlClasses()) {
+            XmlClass classCopy = new XmlClass(xmlClass.getName());
+            classCopy.setIncludedMethods(new ArrayList<>(xmlClass.getIncludedMethods()));
+            classCopy.setExcludedMethods(new ArrayList<>(xmlClass.getExcludedMethods()));
+            classes.add(classCopy);
+        }
+        copy.setXmlClasses(classes);
+        copy.setXmlPackages(original.getXmlPackages());
+
+        int limit = Integer.parseInt(ConfigReader.getValue("browser_limit." + browser.replace("-headless", ""),
+                String.valueOf(original.getThreadCount())));
+        copy.setThreadCount(Math.max(1, Math.min(original.getThreadCount(), limit)));
+        return copy;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.listeners;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.openqa.selenium.NoSuchSessionException;
+import org.testng.IInvokedMethod;
+import org.testng.IInvokedMethodListener;
+import org.testng.ITestResult;
+import org.testng.TestNG;
+import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import snap.data.StreamingDataProvider;
+import snap.utilities.ConfigReader;
+import snap.utilities.EnvironmentCircuitBreaker;
+import snap.utilities.ParkedSessions;
+
+public class FailedTestRerun implements IInvokedMethodListener {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(ConfigReader.getValue("rerun_failed_tests", "false"));
+
+    // Failed tests of the main run in the order they failed, keyed by class, method, browser and parameters
+    private static final Map<String, Failure> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static volatile boolean rerunning;
+
+    /**
+     * Asks for the session of a failed test to be parked for its rerun, unless the failure means
+     * the session or the environment is no longer usable.
+     *
+     * @param method     the invoked method
+     * @param testResult the result of the invoked method
+     */
+    @Override
+    public void afterInvocation(IInvokedMethod method, ITestResult testResult) {
+        if (!ENABLED || rerunning || !method.isTestMethod() || testResult.getStatus() != ITestResult.FAILURE) {
+            return;
+        }
+        Throwable failure = testResult.getThrowable();
+        if (failure instanceof NoSuchSessionException || EnvironmentCircuitBreaker.isInfrastructureFailure(failure)) {
+            return;
+        }
+        ParkedSessions.requestParking(browserOf(testResult));
+    }
+
+    /**
+     * Returns whether failed tests are rerun at the end of the run. Enabled with
+     * {@code rerun_failed_tests=true} in config.properties.
+     *
+     * @return true if the rerun pass is enabled
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Returns whether the rerun pass is running.
+     *
+     * @return true while failed tests are being rerun
+     */
+    public static boolean isRerunning() {
+        return rerunning;
+    }
+
+    /**
+     * Remembers a failed test of the main run and its report entry.
+     *
+     * @param result the failed test result
+     * @param test   the Extent test of the failed test
+     */
+    static void collect(ITestResult result, ExtentTest test) {
+        if (ENABLED && !rerunning) {
+            failures.put(keyOf(result), new Failure(result, test));
+        }
+    }
+
+    /**
+     * Creates the report entry of a rerun attempt as a node of the original test's entry, so both
+     * attempts show up as one test.
+     *
+     * @param result the test result of the attempt
+     * @param name   the display name of the test
+     * @return the node of the attempt, or null if the original entry is unknown
+     */
+    static ExtentTest createAttemptNode(ITestResult result, String name) {
+        Failure failure = failures.get(keyOf(result));
+        if (failure == null) {
+            return null;
+        }
+        return failure.test.createNode("Rerun: " + name);
+    }
+
+    /**
+     * Records the outcome of a rerun attempt on the original test's entry. A test that passes on
+     * its rerun keeps the failure of its first attempt and is tagged as flaky.
+     *
+     * @param result the test result of the attempt
+     * @param status the outcome of the attempt
+     */
+    static void recordOutcome(ITestResult result, String status) {
+        Failure failure = failures.get(keyOf(result));
+        if (failure == null) {
+            return;
+        }
+        if (status.equals("passed")) {
+            failure.test.log(Status.WARNING, "Passed on rerun, the first failure is flaky.");
+            failure.test.assignCategory("Flaky");
+        } else {
+            failure.test.log(Status.INFO, "Rerun " + status + ", the failure is reproducible.");
+        }
+    }
+
+    /**
+     * Reruns the failed tests of the main run in a nested TestNG run, with
+     * {@code rerun_thread_count} tests in parallel. Sessions parked by the failed tests are reused
+     * where their browser matches, and any left over are quit afterwards.
+     */
+    static void run() {
+        List<Failure> toRerun;
+        synchronized (failures) {
+            toRerun = new ArrayList<>(failures.values());
+        }
+        if (!ENABLED || toRerun.isEmpty()) {
+            ParkedSessions.quitAll();
+            return;
+        }
+        XmlSuite suite = new XmlSuite();
+        suite.setName("Rerun of failed tests");
+        suite.setParallel(XmlSuite.ParallelMode.METHODS);
+        suite.setThreadCount(Integer.parseInt(ConfigReader.getValue("rerun_thread_count", "2")));
+
+        // One rerun <test> per original <test>, so each keeps its parameters such as the browser;
+        // methods fed by StreamingDataProvider only rerun the rows that failed
+        Map<XmlTest, Map<String, Map<String, List<Integer>>>> methodsByTest = new LinkedHashMap<>();
+        for (Failure failure : toRerun) {
+            List<Integer> rows = methodsByTest.computeIfAbsent(failure.xmlTest, key -> new LinkedHashMap<>())
+                    .computeIfAbsent(failure.className, key -> new LinkedHashMap<>())
+                    .computeIfAbsent(failure.methodName, key -> new ArrayList<>());
+            if (failure.parameterIndex != null) {
+                rows.add(failure.parameterIndex);
+            }
+        }
+        methodsByTest.forEach((original, classes) -> {
+            XmlTest test = new XmlTest(suite);
+            test.setName(original.getName());
+            test.setParameters(original.getAllParameters());
+            List<XmlClass> xmlClasses = new ArrayList<>();
+            classes.forEach((className, methods) -> {
+                XmlClass xmlClass = new XmlClass(className);
+                List<XmlInclude> includes = new ArrayList<>();
+                methods.forEach((method, rows) -> includes.add(rows.isEmpty() ? new XmlInclude(method)
+                        : new XmlInclude(method, rows, 0)));
+                xmlClass.setIncludedMethods(includes);
+                xmlClasses.add(xmlClass);
+            });
+            test.setXmlClasses(xmlClasses);
+        });
+
+        TestNG testng = new TestNG(false);
+        testng.setXmlSuites(Collections.singletonList(suite));
+        testng.setOutputDirectory("test-output/rerun");
+        testng.addListener(new ReportListeners());
+        testng.addListener(new AssetPolicyListener());
+        testng.addListener(new VirtualThreadHook());
+        System.out.println("Rerunning " + toRerun.size() + " failed test(s).");
+        rerunning = true;
+        try {
+            testng.run();
+        } finally {
+            rerunning = false;
+            ParkedSessions.quitAll();
+        }
+    }
+
+    private static String browserOf(ITestResult result) {
+        String browser = result.getTestContext().getCurrentXmlTest().getParameter("browser");
+        return browser != null ? browser : ConfigReader.getValue("test_browser");
+    }
+
+    private static String keyOf(ITestResult result) {
+        return result.getMethod().getRealClass().getName() + "." + result.getMethod().getMethodName() + "|"
+                + browserOf(result) + "|" + Arrays.toString(result.getParameters());
+    }
+
+    private static final class Failure {
+        private final XmlTest xmlTest;
+        private final String className;
+        private final String methodName;
+        // Position of the failed row of a streamed data-driven method, null to rerun the whole method
+        private final Integer parameterIndex;
+        private final ExtentTest test;
+
+        private Failure(ITestResult result, ExtentTest test) {
+            this.xmlTest = result.getTestContext().getCurrentXmlTest();
+            this.className = result.getMethod().getRealClass().getName();
+            this.methodName = result.getMethod().getMethodName();
+            this.parameterIndex = StreamingDataProvider.rowIndexOf(result.getParameters());
+            this.test = test;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.listeners;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+import snap.reports.jfr.WebDriverCommandEvent;
+import snap.utilities.ActionTimer;
+
+/**
+ * WebDriver listener emitting a Flight Recorder event for every driver, element and navigation
+ * call, so JFR timelines show which browser round trip a test thread was waiting on.
+ */
+public class FlightRecorderDriverListener implements WebDriverListener {
+
+    // Events of the calls in progress on the current thread; calls can nest through decorated objects
+    private static final ThreadLocal<Deque<WebDriverCommandEvent>> inProgress =
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    /**
+     * Wraps a driver so that every call on it, and on the elements it returns, is recorded.
+     *
+     * @param driver the driver to wrap
+     * @return the decorated driver
+     */
+    public static WebDriver decorate(WebDriver driver) {
+        return new EventFiringDecorator<>(new FlightRecorderDriverListener()).decorate(driver);
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        WebDriverCommandEvent event = new WebDriverCommandEvent();
+        event.begin();
+        inProgress.get().push(event);
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        commit(target, method, args, false);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        commit(target, method, args, true);
+    }
+
+    private static void commit(Object target, Method method, Object[] args, boolean failed) {
+        WebDriverCommandEvent event = inProgress.get().poll();
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.testName = ActionTimer.getCurrentTest();
+            event.target = target.getClass().getSimpleName();
+            event.command = method.getName();
+            // Typed text may be a credential, so only its presence is recorded
+            event.arguments = args == null ? "" : "sendKeys".equals(method.getName()) ? "[typed text]"
+                    : Arrays.toString(args);
+            event.failed = failed;
+            event.commit();
+        }
+    }
+}
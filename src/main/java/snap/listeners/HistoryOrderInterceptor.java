@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.listeners;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+import snap.reports.AllureResultsIndex;
+import snap.utilities.ConfigReader;
+
+public class HistoryOrderInterceptor implements IMethodInterceptor {
+
+    /**
+     * Orders test methods so that the historically slowest tests start first, which keeps parallel
+     * workers busy until the end of the run. Tests without history keep their relative order and
+     * run after the known ones. Enabled with {@code history_scheduling=true} in config.properties.
+     *
+     * @param methods the methods TestNG is about to run
+     * @param context the current test context
+     * @return the methods in execution order
+     */
+    @Override
+    public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+        if (!Boolean.parseBoolean(ConfigReader.getValue("history_scheduling", "false"))) {
+            return methods;
+        }
+        try {
+            AllureResultsIndex index = AllureResultsIndex.openDefault();
+            List<IMethodInstance> ordered = new ArrayList<>(methods);
+            ordered.sort(Comparator.comparingLong((IMethodInstance method) -> index.getExpectedDuration(
+                    method.getMethod().getRealClass().getName() + "." + method.getMethod().getMethodName()))
+                    .reversed());
+            System.out.println("Test methods ordered by historical duration.");
+            return ordered;
+        } catch (Exception e) {
+            System.out.println("Unable to order tests by history: " + e);
+            return methods;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.listeners;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import snap.utilities.ActionTimer;
+
+/**
+ * Embedded HTTP dashboard streaming test progress over server-sent events while a run is in progress.
+ * <p>
+ * Test threads only update counters and offer events to a bounded queue; serialization happens on
+ * a single background thread, which hands every frame to a bounded queue per client. Each client
+ * has its own sender thread, so a slow browser never holds up the others. When the event queue is
+ * full, events are dropped rather than blocking a test; when a client's queue is full, the client
+ * is disconnected.
+ */
+public class LiveDashboard {
+
+    private static final int EVENT_QUEUE_CAPACITY = 10_000;
+    private static final int CLIENT_QUEUE_CAPACITY = 1_000;
+    private static final Gson GSON = new Gson();
+
+    private static final BlockingQueue<Map<String, Object>> events = new ArrayBlockingQueue<>(EVENT_QUEUE_CAPACITY);
+    private static final List<Client> clients = new CopyOnWriteArrayList<>();
+    private static final Map<String, RunningTest> runningTests = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger plannedTests = new AtomicInteger();
+    private static final AtomicInteger startedTests = new AtomicInteger();
+    private static final AtomicInteger passedTests = new AtomicInteger();
+    private static final AtomicInteger failedTests = new AtomicInteger();
+    private static final AtomicInteger skippedTests = new AtomicInteger();
+    private static final AtomicLong droppedEvents = new AtomicLong();
+
+    private static volatile HttpServer server;
+    private static volatile Thread broadcaster;
+
+    /**
+     * Starts the dashboard on the given port. Calling it again while running only adds to the
+     * number of planned tests.
+     *
+     * @param port       the local port to listen on
+     * @param testsToRun the number of test methods planned for this run
+     */
+    public static synchronized void start(int port, int testsToRun) {
+        plannedTests.addAndGet(testsToRun);
+        if (server != null) {
+            return;
+        }
+        try {
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+            httpServer.createContext("/", LiveDashboard::servePage);
+            httpServer.createContext("/state", LiveDashboard::serveState);
+            httpServer.createContext("/events", LiveDashboard::serveEvents);
+            httpServer.setExecutor(Executors.newFixedThreadPool(2, runnable -> {
+                Thread thread = new Thread(runnable, "live-dashboard-http");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            httpServer.start();
+            server = httpServer;
+
+            broadcaster = new Thread(LiveDashboard::broadcastLoop, "live-dashboard-broadcaster");
+            broadcaster.setDaemon(true);
+            broadcaster.start();
+            System.out.println("Live dashboard available at http://localhost:" + port + "/");
+        } catch (IOException e) {
+            System.out.println("Unable to start live dashboard on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes the end of the run and stops the dashboard.
+     */
+    public static synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        publish("finished", null, null);
+        try {
+            // Give the broadcaster a moment to deliver the final event
+            TimeUnit.MILLISECONDS.sleep(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        broadcaster.interrupt();
+        for (Client client : clients) {
+            client.disconnect();
+        }
+        server.stop(0);
+        server = null;
+    }
+
+    /**
+     * Returns whether the dashboard is currently running.
+     *
+     * @return true if the dashboard is running
+     */
+    public static boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * Records that a test has started on the current thread.
+     *
+     * @param testName the display name of the test
+     */
+    public static void testStarted(String testName) {
+        if (server == null) {
+            return;
+        }
+        startedTests.incrementAndGet();
+        runningTests.put(Thread.currentThread().getName(), new RunningTest(testName, System.currentTimeMillis()));
+        publish("testStarted", testName, null);
+    }
+
+    /**
+     * Records that the test running on the current thread has finished.
+     *
+     * @param testName the display name of the test
+     * @param status   the outcome: "passed", "failed" or "skipped"
+     */
+    public static void testFinished(String testName, String status) {
+        if (server == null) {
+            return;
+        }
+        switch (status) {
+            case "passed":
+                passedTests.incrementAndGet();
+                break;
+            case "failed":
+                failedTests.incrementAndGet();
+                break;
+            default:
+                skippedTests.incrementAndGet();
+                break;
+        }
+        runningTests.remove(Thread.currentThread().getName());
+        publish("testFinished", testName, status);
+    }
+
+    /**
+     * Publishes a logged step of the test running on the current thread.
+     *
+     * @param stepDescription the step description
+     */
+    public static void step(String stepDescription) {
+        if (server == null) {
+            return;
+        }
+        publish("step", currentTestName(), stepDescription);
+    }
+
+    /**
+     * Publishes that a screenshot was captured by the test running on the current thread.
+     *
+     * @param fileName the screenshot file name
+     */
+    public static void screenshot(String fileName) {
+        if (server == null) {
+            return;
+        }
+        publish("screenshot", currentTestName(), fileName);
+    }
+
+    private static String currentTestName() {
+        RunningTest running = runningTests.get(Thread.currentThread().getName());
+        // Virtual threads and background tasks carry the test name in their ThreadContext instead
+        return running != null ? running.name : ActionTimer.getCurrentTest();
+    }
+
+    private static void publish(String type, String testName, String detail) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", type);
+        event.put("time", System.currentTimeMillis());
+        event.put("thread", Thread.currentThread().getName());
+        event.put("test", testName);
+        event.put("detail", detail);
+        if (!events.offer(event)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    private static void broadcastLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Map<String, Object> event = events.take();
+                byte[] frame = ("event: " + event.get("type") + "\ndata: " + GSON.toJson(event) + "\n\n")
+                        .getBytes(StandardCharsets.UTF_8);
+                for (Client client : clients) {
+                    client.offer(frame);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Map<String, Object> snapshot() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> running = new ArrayList<>();
+        runningTests.entrySet().stream()
+                .sorted((a, b) -> Long.compare(a.getValue().startTime, b.getValue().startTime))
+                .forEach(entry -> {
+                    Map<String, Object> test = new LinkedHashMap<>();
+                    test.put("thread", entry.getKey());
+                    test.put("test", entry.getValue().name);
+                    test.put("runningMillis", now - entry.getValue().startTime);
+                    running.add(test);
+                });
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("activeWorkers", running.size());
+        state.put("queued", Math.max(0, plannedTests.get() - startedTests.get()));
+        state.put("passed", passedTests.get());
+        state.put("failed", failedTests.get());
+        state.put("skipped", skippedTests.get());
+        state.put("droppedEvents", droppedEvents.get());
+        state.put("running", running);
+        return state;
+    }
+
+    private static void servePage(HttpExchange exchange) throws IOException {
+        respond(exchange, "text/html; charset=utf-8", PAGE);
+    }
+
+    private static void serveState(HttpExchange exchange) throws IOException {
+        respond(exchange, "application/json", GSON.toJson(snapshot()));
+    }
+
+    private static void serveEvents(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = exchange.getResponseBody();
+        body.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
+        body.flush();
+        // The exchange stays open; the client's sender writes to it until the client disconnects
+        Client client = new Client(exchange);
+        clients.add(client);
+        client.sender.start();
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    private static final class Client {
+        private final HttpExchange exchange;
+        private final BlockingQueue<byte[]> frames = new ArrayBlockingQueue<>(CLIENT_QUEUE_CAPACITY);
+        private final Thread sender;
+
+        private Client(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.sender = new Thread(this::sendLoop, "live-dashboard-client");
+            sender.setDaemon(true);
+        }
+
+        private void offer(byte[] frame) {
+            if (!frames.offer(frame)) {
+                // The client cannot keep up; drop it rather than buffer without bound
+                disconnect();
+            }
+        }
+
+        // Called from other threads; the sender closes the exchange once its current write returns
+        private void disconnect() {
+            clients.remove(this);
+            sender.interrupt();
+        }
+
+        private void sendLoop() {
+            OutputStream body = exchange.getResponseBody();
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    body.write(frames.take());
+                    body.flush();
+                }
+            } catch (IOException e) {
+                // The browser went away
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                clients.remove(this);
+                exchange.close();
+            }
+        }
+    }
+
+    private static final class RunningTest {
+        private final String name;
+        private final long startTime;
+
+        private RunningTest(String name, long startTime) {
+            this.name = name;
+            this.startTime = startTime;
+        }
+    }
+
+    private static final String PAGE = "<!DOCTYPE html><html><head><meta charset='utf-8'><title>SNAP Live Run</title>"
+            + "<style>body{font-family:sans-serif;margin:20px}table{border-collapse:collapse}"
+            + "td,th{border:1px solid #ccc;padding:4px 8px;text-align:left}.n{font-size:24px;margin-right:24px}"
+            + "#feed{height:300px;overflow:auto;font-family:monospace;font-size:12px;border:1px solid #ccc}</style>"
+            + "</head><body><h2>SNAP Live Run</h2>"
+            + "<div><span class='n'>Workers: <b id='activeWorkers'>0</b></span>"
+            + "<span class='n'>Queued: <b id='queued'>0</b></span>"
+            + "<span class='n' style='color:green'>Passed: <b id='passed'>0</b></span>"
+            + "<span class='n' style='color:red'>Failed: <b id='failed'>0</b></span>"
+            + "<span class='n'>Skipped: <b id='skipped'>0</b></span></div>"
+            + "<h3>Running tests (slowest first)</h3><table><thead><tr><th>Thread</th><th>Test</th><th>Seconds</th>"
+            + "</tr></thead><tbody id='running'></tbody></table><h3>Events</h3><div id='feed'></div>"
+            + "<script>"
+            + "function refresh(){fetch('/state').then(r=>r.json()).then(s=>{"
+            + "['activeWorkers','queued','passed','failed','skipped'].forEach(k=>document.getElementById(k).textContent=s[k]);"
+            + "var b=document.getElementById('running');b.textContent='';"
+            + "s.running.forEach(t=>{var r=b.insertRow();[t.thread,t.test,(t.runningMillis/1000).toFixed(1)]"
+            + ".forEach(v=>r.insertCell().textContent=v);});});}"
+            + "function add(e){var d=JSON.parse(e.data),f=document.getElementById('feed'),l=document.createElement('div');"
+            + "l.textContent=new Date(d.time).toLocaleTimeString()+' ['+d.thread+'] '+d.type+' '+(d.test||'')+' '+(d.detail||'');"
+            + "f.insertBefore(l,f.firstChild);}"
+            + "var es=new EventSource('/events');"
+            + "['testStarted','testFinished','step','screenshot','finished'].forEach(t=>es.addEventListener(t,add));"
+            + "refresh();setInterval(refresh,1000);"
+            + "</script></body></html>";
+}
@@ -18,58 +18,128 @@ package snap.listeners;
 import java.awt.Desktop;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
 import com.aventstack.extentreports.MediaEntityBuilder;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.io.FileHandler;
-import org.testng.ITestContext;
+import org.testng.ISuite;
+import org.testng.ISuiteListener;
 import org.testng.ITestListener;
 import org.testng.ITestResult;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.Status;
+import snap.dryrun.DryRun;
+import snap.network.NetworkArchive;
+import snap.reports.BrowserTimings;
 import snap.reports.ExtentReportManager;
+import snap.reports.LatencyHistogram;
+import snap.reports.RunMetrics;
+import snap.reports.jfr.ReportWriteEvent;
+import snap.reports.jfr.TestEvent;
+import snap.utilities.ActionTimer;
+import snap.utilities.BackgroundTasks;
+import snap.utilities.ConfigReader;
+import snap.utilities.DeadlineBudget;
+import snap.utilities.SessionWatchdog;
+import snap.utilities.TabMultiplexer;
 import snap.utilities.WebDriverMgr;
 
-public class ReportListeners implements ITestListener {
+public class ReportListeners implements ISuiteListener, ITestListener {
 
     private static ThreadLocal<ExtentTest> extentTest = new ThreadLocal<>();
+    private static ThreadLocal<TestEvent> testEvent = new ThreadLocal<>();
+    // The result whose onTestStart ran on this thread, to recognize tests skipped without starting
+    private static ThreadLocal<ITestResult> startedResult = new ThreadLocal<>();
 
     @Override
-    public void onStart(ITestContext context) {
+    public void onStart(ISuite suite) {
+        // The rerun pass reports into the report of the main run
+        if (FailedTestRerun.isRerunning()) {
+            return;
+        }
+        long started = System.nanoTime();
+        // One report per suite, so the tests of a browser matrix share it
         ExtentReportManager.setupExtentReport();
         System.out.println("Report initialized.");
+        DeadlineBudget.startSuite();
+        int plannedTests = suite.getAllMethods().size();
+        RunMetrics.testsPlanned(plannedTests);
+        if (Boolean.parseBoolean(ConfigReader.getValue("metrics_endpoint", "false"))) {
+            RunMetrics.startServer(ConfigReader.getValue("metrics_host", "localhost"),
+                    Integer.parseInt(ConfigReader.getValue("metrics_port", "9464")));
+        }
+        if (Boolean.parseBoolean(ConfigReader.getValue("live_dashboard", "false"))) {
+            LiveDashboard.start(Integer.parseInt(ConfigReader.getValue("live_dashboard_port", "8085")), plannedTests);
+        }
+        ActionTimer.record("ReportListeners.onStart", null, System.nanoTime() - started);
     }
 
     @Override
-    public void onFinish(ITestContext context) {
+    public void onFinish(ISuite suite) {
+        if (FailedTestRerun.isRerunning()) {
+            return;
+        }
+        // Rerun failed tests while the report and the parked sessions are still open
+        FailedTestRerun.run();
+        SessionWatchdog.sweep();
+        TabMultiplexer.shutdown();
+        BackgroundTasks.awaitCompletion();
         ExtentReportManager.flushExtentReport();
         System.out.println("Extent Report flushed.");
-        openReportInBrowser(ExtentReportManager.extentReportFile);
+        NetworkArchive.save();
+        LiveDashboard.stop();
+        RunMetrics.stopServer();
+        // Dry runs target build agents, where there is nobody to look at the report
+        if (!DryRun.isEnabled()) {
+            openReportInBrowser(ExtentReportManager.extentReportFile);
+        }
     }
 
     @Override
     public void onTestStart(ITestResult result) {
-        String methodName = result.getMethod().getMethodName();
-        String className = result.getMethod().getRealClass().getSimpleName();
-        ExtentTest test = ExtentReportManager.createTest(className + "\n>> " + methodName);
+        long started = System.nanoTime();
+        ExtentTest test = createExtentTest(result);
         extentTest.set(test);
-        test.log(Status.INFO, "Test case '" + className + ">>" + methodName + "' execution started.");
-        System.out.println("Execution of '" + className + ">>" + methodName + "' test has started.");
+        startedResult.set(result);
+        ActionTimer.setCurrentTest(displayName(result));
+        DeadlineBudget.startTest(displayName(result));
+        beginTestEvent();
+        test.log(Status.INFO, "Test case '" + displayName(result) + "' execution started.");
+        System.out.println("Execution of '" + displayName(result) + "' test has started.");
+        LiveDashboard.testStarted(displayName(result));
+        // A rerun attempt was already counted when the test first ran
+        if (!FailedTestRerun.isRerunning()) {
+            RunMetrics.testStarted();
+        }
+        ActionTimer.record("ReportListeners.onTestStart", null, System.nanoTime() - started);
     }
 
     @Override
     public void onTestSuccess(ITestResult result) {
+        long started = System.nanoTime();
         ExtentTest test = extentTest.get();
         test.log(Status.PASS, "Test case '" + result.getMethod().getMethodName() + "' execution passed.");
         System.out.println("Test case '" + result.getMethod().getMethodName() + "' execution passed.");
+        LiveDashboard.testFinished(displayName(result), "passed");
+        recordRerunOutcome(result, "passed");
+        commitTestEvent("passed");
+        recordRunOutcome(result, "passed");
+        logDryRunOverhead(test, result);
+        ActionTimer.record("ReportListeners.onTestSuccess", null, System.nanoTime() - started);
+        logActionTimings(test);
     }
 
     @Override
     public void onTestFailure(ITestResult result) {
+        long started = System.nanoTime();
         ExtentTest test = extentTest.get();
         String methodName = result.getMethod().getMethodName();
         String className = result.getTestClass().getRealClass().getSimpleName();
@@ -99,13 +169,56 @@ public class ReportListeners implements ITestListener {
         logScreenshotStep(Status.FAIL, logMessage);
         System.out.println(logMessage);
         test.log(Status.FAIL, result.getThrowable());
+        LiveDashboard.testFinished(displayName(result), "failed");
+        FailedTestRerun.collect(result, test);
+        recordRerunOutcome(result, "failed");
+        commitTestEvent("failed");
+        recordRunOutcome(result, "failed");
+        logDryRunOverhead(test, result);
+        ActionTimer.record("ReportListeners.onTestFailure", null, System.nanoTime() - started);
+        logActionTimings(test);
     }
 
     @Override
     public void onTestSkipped(ITestResult result) {
+        long started = System.nanoTime();
         ExtentTest test = extentTest.get();
+        if (startedResult.get() != result) {
+            // Skipped without being started on this thread; the thread's entry belongs to another test
+            test = createExtentTest(result);
+            extentTest.set(test);
+        }
         test.log(Status.SKIP, "Test case '" + result.getMethod().getMethodName() + "' execution skipped.");
         System.out.println("Test case '" + result.getMethod().getMethodName() + "' execution skipped.");
+        LiveDashboard.testFinished(displayName(result), "skipped");
+        recordRerunOutcome(result, "skipped");
+        commitTestEvent("skipped");
+        recordRunOutcome(result, "skipped");
+        logDryRunOverhead(test, result);
+        ActionTimer.record("ReportListeners.onTestSkipped", null, System.nanoTime() - started);
+        logActionTimings(test);
+    }
+
+    /**
+     * Returns the Extent test of the current thread.
+     *
+     * @return the ExtentTest instance, or null if no test is running on this thread
+     */
+    public static ExtentTest getExtentTest() {
+        return extentTest.get();
+    }
+
+    /**
+     * Sets the Extent test of the current thread, for work carried over from another thread.
+     *
+     * @param test the ExtentTest instance, or null to clear it
+     */
+    public static void setExtentTest(ExtentTest test) {
+        if (test == null) {
+            extentTest.remove();
+        } else {
+            extentTest.set(test);
+        }
     }
 
     /**
@@ -116,6 +229,9 @@ public class ReportListeners implements ITestListener {
     public static void startTest(String testName) {
         ExtentTest test = ExtentReportManager.createTest(testName);
         extentTest.set(test);
+        ActionTimer.setCurrentTest(testName);
+        DeadlineBudget.startTest(testName);
+        beginTestEvent();
         test.log(Status.INFO, "Test case '" + testName + "' execution started.");
         System.out.println("Execution of '" + testName + "' test has started.");
     }
@@ -128,6 +244,7 @@ public class ReportListeners implements ITestListener {
         if (test != null) {
             test.log(Status.INFO, "Test case execution ended.");
             System.out.println("Execution of test case ended.");
+            commitTestEvent("ended");
         }
     }
 
@@ -141,6 +258,7 @@ public class ReportListeners implements ITestListener {
         if (test != null) {
             test.log(Status.INFO, stepDescription);
             System.out.println(stepDescription);
+            LiveDashboard.step(stepDescription);
         }
     }
 
@@ -155,6 +273,7 @@ public class ReportListeners implements ITestListener {
         if (test != null) {
             test.log(status, stepDescription);
             System.out.println(stepDescription);
+            LiveDashboard.step(stepDescription);
         }
     }
 
@@ -232,19 +351,174 @@ public class ReportListeners implements ITestListener {
      * @throws IOException if an error occurs while saving the screenshot
      */
     private static void captureAndLogScreenshot(WebDriver driver, ExtentTest test) throws IOException {
-        // Capture screenshot
-        File source = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
+        ReportWriteEvent event = new ReportWriteEvent();
+        event.begin();
+
+        // Capture the screenshot once; the same bytes go to the file and to the report
+        byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
         String fileName = "Screenshot_" + new SimpleDateFormat("ddMMyyyy_HHmmss").format(new Date()) + ".png";
         String destinationPath = "./Screenshots/" + fileName; // Save in "Screenshots" folder
-        FileHandler.copy(source, new File(destinationPath));
+        BackgroundTasks.submit("write " + fileName, () -> {
+            try {
+                Files.write(Paths.get(destinationPath), screenshot);
+                RunMetrics.screenshotWritten(screenshot.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
 
-        String screenshotBase64 = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+        String screenshotBase64 = Base64.getEncoder().encodeToString(screenshot);
 
         // Log screenshot in the Extent report as base64
         test.info("Screenshot: ",
                 MediaEntityBuilder.createScreenCaptureFromBase64String(screenshotBase64).build());
 
         System.out.println("Screenshot captured: " + fileName);
+        LiveDashboard.screenshot(fileName);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.testName = ActionTimer.getCurrentTest();
+            event.operation = "screenshot";
+            event.path = destinationPath;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts the Flight Recorder event covering the test running on the current thread.
+     */
+    private static void beginTestEvent() {
+        TestEvent event = new TestEvent();
+        event.begin();
+        testEvent.set(event);
+    }
+
+    /**
+     * Commits the Flight Recorder event of the test running on the current thread.
+     *
+     * @param status the outcome of the test
+     */
+    private static void commitTestEvent(String status) {
+        TestEvent event = testEvent.get();
+        testEvent.remove();
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.testName = ActionTimer.getCurrentTest();
+            event.status = status;
+            event.commit();
+        }
+    }
+
+    /**
+     * Logs the latency percentiles of the actions executed by the current test and detaches the
+     * thread from the test and its deadline budget.
+     *
+     * @param test the ExtentTest instance of the finished test
+     */
+    private static void logActionTimings(ExtentTest test) {
+        String testName = ActionTimer.getCurrentTest();
+        if (test != null && testName != null) {
+            Map<String, LatencyHistogram> histograms = ActionTimer.getTestHistograms(testName);
+            if (!histograms.isEmpty()) {
+                test.log(Status.INFO, "Action timings:" + ActionTimer.toHtmlTable(histograms));
+            }
+        }
+        ActionTimer.setCurrentTest(null);
+        DeadlineBudget.endTest();
+        startedResult.remove();
+    }
+
+    /**
+     * Logs the duration of a dry-run test. With the in-memory driver and fixture there is no
+     * browser or Appian time, so the duration is the framework's own overhead for the test. The
+     * value is also recorded as the "dryRun.testOverhead" action so it appears in the run-wide
+     * timings.
+     *
+     * @param test   the ExtentTest instance of the finished test
+     * @param result the test result
+     */
+    private static void logDryRunOverhead(ExtentTest test, ITestResult result) {
+        if (!DryRun.isEnabled()) {
+            return;
+        }
+        long overheadMillis = Math.max(0, System.currentTimeMillis() - result.getStartMillis());
+        ActionTimer.record("dryRun.testOverhead", displayName(result), overheadMillis * 1_000_000);
+        if (test != null) {
+            test.log(Status.INFO, "Dry run framework overhead: " + overheadMillis + " ms");
+        }
+        System.out.println("Dry run framework overhead of '" + displayName(result) + "': " + overheadMillis + " ms");
+    }
+
+    /**
+     * Builds the display name used for a test result outside the Extent report.
+     *
+     * @param result the test result
+     * @return the name in the form 'Class>>method', followed by ' [browser]' in a browser matrix run
+     */
+    private static String displayName(ITestResult result) {
+        String browser = BrowserMatrixListener.browserOf(result);
+        return result.getMethod().getRealClass().getSimpleName() + ">>" + result.getMethod().getMethodName()
+                + (browser != null ? " [" + browser + "]" : "");
+    }
+
+    /**
+     * Creates the report entry of a test, as a new attempt of the original entry during a rerun.
+     *
+     * @param result the test result
+     * @return the ExtentTest instance of the test
+     */
+    private static ExtentTest createExtentTest(ITestResult result) {
+        ExtentTest test = FailedTestRerun.isRerunning() ? FailedTestRerun.createAttemptNode(result, displayName(result))
+                : null;
+        if (test == null) {
+            String browser = BrowserMatrixListener.browserOf(result);
+            test = ExtentReportManager.createTest(result.getMethod().getRealClass().getSimpleName() + "\n>> "
+                    + result.getMethod().getMethodName() + (browser != null ? " [" + browser + "]" : ""));
+        }
+        return test;
+    }
+
+    /**
+     * Records the outcome of a rerun attempt on the entry of the test's first attempt.
+     *
+     * @param result the finished test result
+     * @param status the outcome of the attempt
+     */
+    private static void recordRerunOutcome(ITestResult result, String status) {
+        if (FailedTestRerun.isRerunning()) {
+            FailedTestRerun.recordOutcome(result, status);
+        }
+    }
+
+    /**
+     * Counts a finished test in the run metrics and the cross-browser timings. Rerun attempts are
+     * left out, so a retried test is counted and timed once, by its original attempt.
+     *
+     * @param result the finished test result
+     * @param status the outcome: "passed", "failed" or "skipped"
+     */
+    private static void recordRunOutcome(ITestResult result, String status) {
+        if (!FailedTestRerun.isRerunning()) {
+            RunMetrics.testFinished(status);
+            recordBrowserTiming(result);
+        }
+    }
+
+    /**
+     * Records the duration of a matrix test for the cross-browser comparison.
+     *
+     * @param result the finished test result
+     */
+    private static void recordBrowserTiming(ITestResult result) {
+        String browser = BrowserMatrixListener.browserOf(result);
+        if (browser != null) {
+            BrowserTimings.record(browser, result.getMethod().getRealClass().getSimpleName() + ">>"
+                    + result.getMethod().getMethodName(), result.getEndMillis() - result.getStartMillis());
+        }
     }
 
     /**
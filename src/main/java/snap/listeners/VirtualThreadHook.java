@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.listeners;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.testng.IHookCallBack;
+import org.testng.IHookable;
+import org.testng.ITestResult;
+import snap.utilities.ThreadContext;
+import snap.utilities.VirtualThreads;
+
+public class VirtualThreadHook implements IHookable {
+
+    /**
+     * Runs the test method body on a virtual thread when {@code virtual_threads=true} and the JVM
+     * supports them. The session, fixture and report state set up by the {@code @BeforeMethod} on
+     * the TestNG worker is carried into the virtual thread, and whatever the test changes is
+     * carried back for the result listeners.
+     * <p>
+     * TestNG 7.8 offers no hook to dispatch methods from another executor, so its platform worker
+     * blocks until the virtual thread finishes. The mode keeps framework state correct on virtual
+     * threads but does not raise concurrency above {@code thread-count}, which is why it stays off
+     * by default.
+     *
+     * @param callBack   the callback running the test method
+     * @param testResult the result of the test method
+     */
+    @Override
+    public void run(IHookCallBack callBack, ITestResult testResult) {
+        if (!VirtualThreads.isEnabled()) {
+            callBack.runTestMethod(testResult);
+            return;
+        }
+        ThreadContext before = ThreadContext.capture();
+        AtomicReference<ThreadContext> after = new AtomicReference<>(before);
+        Thread thread = VirtualThreads.newThread(testResult.getMethod().getMethodName(), () -> {
+            before.apply();
+            try {
+                callBack.runTestMethod(testResult);
+            } finally {
+                after.set(ThreadContext.capture());
+                ThreadContext.clear();
+            }
+        });
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        after.get().apply();
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.Json;
+import snap.constants.CommonConstants;
+import snap.reports.LatencyHistogram;
+import snap.utilities.ActionTimer;
+import snap.utilities.ConfigReader;
+
+/**
+ * Applies a resource policy to Chrome sessions through the DevTools protocol and measures the
+ * traffic of every test.
+ * <p>
+ * A policy is defined in config.properties by its URL block list, the resource types to block and
+ * an optional network throttling profile:
+ * <pre>
+ * asset_policy.minimal.blocked_urls=*.woff2,*google-analytics.com*
+ * asset_policy.minimal.blocked_types=Font,Media
+ * asset_policy.minimal.throttling=fast3g
+ * </pre>
+ * {@code asset_policy} names the default policy and {@code asset_policy_groups} maps TestNG groups
+ * to policies, for example {@code login:none,forms:minimal}.
+ * <p>
+ * Every request of a test is counted and timed. The bytes saved by a blocked request are
+ * estimated from the size the same URL had when it was last downloaded, in this run or an
+ * earlier one.
+ */
+public class AssetPolicy {
+
+    private static final String NONE = "none";
+
+    // Throttling profiles: latency in ms, download and upload throughput in bytes per second
+    private static final Map<String, long[]> THROTTLING_PROFILES = new HashMap<>();
+
+    static {
+        THROTTLING_PROFILES.put("slow3g", new long[] { 400, 50_000, 50_000 });
+        THROTTLING_PROFILES.put("fast3g", new long[] { 150, 200_000, 93_750 });
+        THROTTLING_PROFILES.put("dsl", new long[] { 20, 250_000, 125_000 });
+    }
+
+    // The configuration is read once; policies are looked up at the start of every test
+    private static final String DEFAULT_POLICY = ConfigReader.getValue("asset_policy", NONE);
+    private static final Map<String, String> POLICY_BY_GROUP = loadPolicyGroups();
+    private static final boolean ENABLED = !DEFAULT_POLICY.equalsIgnoreCase(NONE) || !POLICY_BY_GROUP.isEmpty();
+    private static final Map<String, AssetPolicy> POLICIES = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<SessionTraffic> session = new ThreadLocal<>();
+    private static final Map<String, Long> assetSizes = loadAssetSizes();
+
+    private final String name;
+    private final List<String> blockedUrls;
+    private final Set<String> blockedTypes;
+    private final String throttling;
+
+    private AssetPolicy(String name) {
+        this.name = name;
+        this.blockedUrls = configList("asset_policy." + name + ".blocked_urls");
+        this.blockedTypes = configList("asset_policy." + name + ".blocked_types").stream().collect(Collectors.toSet());
+        this.throttling = ConfigReader.getValue("asset_policy." + name + ".throttling", NONE).toLowerCase();
+    }
+
+    /**
+     * Returns whether any policy other than "none" is configured.
+     *
+     * @return true if sessions should be attached to the asset policy
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Starts capturing the traffic of the browser session of the current thread. Does nothing when
+     * no policy is configured or the driver does not support DevTools.
+     *
+     * @param driver the newly created driver, before any decoration
+     */
+    public static void attach(WebDriver driver) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!(driver instanceof HasDevTools)) {
+            System.out.println("Asset policy needs a DevTools capable browser; no policy is applied.");
+            return;
+        }
+        try {
+            DevTools devTools = ((HasDevTools) driver).getDevTools();
+            devTools.createSessionIfThereIsNotOne();
+            SessionTraffic traffic = new SessionTraffic(devTools);
+            traffic.listen();
+            session.set(traffic);
+        } catch (RuntimeException e) {
+            System.out.println("Unable to attach the asset policy: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Forgets the session of the current thread. Call before quitting the driver.
+     */
+    public static void detach() {
+        session.remove();
+    }
+
+    /**
+     * Returns a task that stops capturing the traffic of the session of the current thread. Used
+     * when the session is quit by another thread, which cannot {@link #detach()} it.
+     *
+     * @return the task, which does nothing if the session is not attached
+     */
+    public static Runnable detachTask() {
+        SessionTraffic traffic = session.get();
+        return traffic == null ? () -> { } : traffic::close;
+    }
+
+    /**
+     * Applies the policy selected for the given groups to the session of the current thread and
+     * resets its traffic counters.
+     *
+     * @param groups the TestNG groups of the test about to run
+     * @return the name of the applied policy, or null if the session is not attached
+     */
+    public static String beginTest(String[] groups) {
+        SessionTraffic traffic = session.get();
+        if (traffic == null) {
+            return null;
+        }
+        AssetPolicy policy = POLICIES.computeIfAbsent(selectPolicy(groups), AssetPolicy::new);
+        try {
+            traffic.apply(policy);
+        } catch (RuntimeException e) {
+            System.out.println("Unable to apply asset policy '" + policy.name + "': " + e.getMessage());
+        }
+        return policy.name;
+    }
+
+    /**
+     * Summarizes the traffic of the test that just ran on the current thread.
+     *
+     * @return the HTML summary, or null if the session is not attached
+     */
+    public static String endTest() {
+        SessionTraffic traffic = session.get();
+        return traffic == null ? null : traffic.summarize();
+    }
+
+    /**
+     * Persists the known asset sizes used to estimate the bytes saved by blocking.
+     */
+    public static void saveAssetSizes() {
+        if (assetSizes.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(CommonConstants.getAssetSizesFilePath());
+        Properties properties = new Properties();
+        assetSizes.forEach((url, size) -> properties.setProperty(url, String.valueOf(size)));
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = Files.newOutputStream(file)) {
+                properties.store(out, "Encoded sizes of downloaded assets");
+            }
+        } catch (IOException e) {
+            System.out.println("Unable to save asset sizes: " + e.getMessage());
+        }
+    }
+
+    private static String selectPolicy(String[] groups) {
+        for (String group : groups) {
+            if (POLICY_BY_GROUP.containsKey(group)) {
+                return POLICY_BY_GROUP.get(group);
+            }
+        }
+        return DEFAULT_POLICY;
+    }
+
+    private static Map<String, String> loadPolicyGroups() {
+        Map<String, String> byGroup = new HashMap<>();
+        for (String mapping : configList("asset_policy_groups")) {
+            String[] parts = mapping.split(":", 2);
+            if (parts.length == 2) {
+                byGroup.put(parts[0].trim(), parts[1].trim());
+            }
+        }
+        return byGroup;
+    }
+
+    private static List<String> configList(String key) {
+        return Arrays.stream(ConfigReader.getValue(key, "").split(","))
+                .map(String::trim).filter(value -> !value.isEmpty()).collect(Collectors.toList());
+    }
+
+    private static Map<String, Long> loadAssetSizes() {
+        Map<String, Long> sizes = new ConcurrentHashMap<>();
+        Path file = Paths.get(CommonConstants.getAssetSizesFilePath());
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+                properties.forEach((url, size) -> sizes.put((String) url, Long.parseLong((String) size)));
+            } catch (IOException | NumberFormatException e) {
+                System.out.println("Unable to read asset sizes: " + e.getMessage());
+            }
+        }
+        return sizes;
+    }
+
+    private static Event<Map<String, Object>> event(String method) {
+        return new Event<>(method, input -> input.read(Json.MAP_TYPE));
+    }
+
+    private static Command<Void> command(String method, Map<String, Object> params) {
+        return new Command<>(method, params);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> child(Map<String, Object> params, String key) {
+        Object value = params.get(key);
+        return value instanceof Map ? (Map<String, Object>) value : Collections.emptyMap();
+    }
+
+    /**
+     * DevTools listeners and traffic counters of one browser session. Events arrive on the
+     * DevTools connection thread, so the counters are atomic and reset at the start of each test.
+     */
+    private static final class SessionTraffic {
+        private final DevTools devTools;
+        private final Map<String, Request> requests = new ConcurrentHashMap<>();
+        private volatile AssetPolicy policy;
+        private volatile Counters counters = new Counters();
+
+        private SessionTraffic(DevTools devTools) {
+            this.devTools = devTools;
+        }
+
+        private void listen() {
+            devTools.send(command("Network.enable", Collections.emptyMap()));
+            devTools.addListener(event("Network.requestWillBeSent"), params -> {
+                Request request = new Request();
+                request.url = String.valueOf(child(params, "request").get("url"));
+                request.type = String.valueOf(params.getOrDefault("type", "Other"));
+                request.timestamp = ((Number) params.get("timestamp")).doubleValue();
+                requests.put(String.valueOf(params.get("requestId")), request);
+                counters.requests.incrementAndGet();
+            });
+            devTools.addListener(event("Network.loadingFinished"), params -> {
+                Request request = requests.remove(String.valueOf(params.get("requestId")));
+                long bytes = ((Number) params.get("encodedDataLength")).longValue();
+                counters.bytes.addAndGet(bytes);
+                if (request != null) {
+                    long nanos = (long) ((((Number) params.get("timestamp")).doubleValue() - request.timestamp) * 1e9);
+                    counters.durations.recordNanos(nanos);
+                    ActionTimer.record("AssetPolicy.request." + request.type, null, nanos);
+                    if (bytes > 0) {
+                        assetSizes.put(request.url, bytes);
+                    }
+                }
+            });
+            devTools.addListener(event("Network.loadingFailed"), params -> {
+                Request request = requests.remove(String.valueOf(params.get("requestId")));
+                boolean blocked = params.get("blockedReason") != null
+                        || String.valueOf(params.get("errorText")).contains("BLOCKED_BY_CLIENT");
+                if (blocked) {
+                    counters.blocked.incrementAndGet();
+                    if (request != null) {
+                        counters.bytesSaved.addAndGet(assetSizes.getOrDefault(request.url, 0L));
+                    }
+                }
+            });
+            if (NetworkArchive.isEnabled()) {
+                // The network archive owns the Fetch domain and answers every paused request
+                return;
+            }
+            devTools.addListener(event("Fetch.requestPaused"), params -> {
+                String requestId = String.valueOf(params.get("requestId"));
+                AssetPolicy current = policy;
+                if (current != null && current.blockedTypes.contains(String.valueOf(params.get("resourceType")))) {
+                    Map<String, Object> fail = new LinkedHashMap<>();
+                    fail.put("requestId", requestId);
+                    fail.put("errorReason", "BlockedByClient");
+                    devTools.send(command("Fetch.failRequest", fail));
+                } else {
+                    devTools.send(command("Fetch.continueRequest", Collections.singletonMap("requestId", requestId)));
+                }
+            });
+        }
+
+        private void apply(AssetPolicy next) {
+            AssetPolicy previous = policy;
+            policy = next;
+            counters = new Counters();
+            counters.policy = next.name;
+
+            devTools.send(command("Network.setBlockedURLs", Collections.singletonMap("urls", next.blockedUrls)));
+
+            long[] profile = THROTTLING_PROFILES.get(next.throttling);
+            Map<String, Object> conditions = new LinkedHashMap<>();
+            conditions.put("offline", false);
+            conditions.put("latency", profile == null ? 0 : profile[0]);
+            conditions.put("downloadThroughput", profile == null ? -1 : profile[1]);
+            conditions.put("uploadThroughput", profile == null ? -1 : profile[2]);
+            devTools.send(command("Network.emulateNetworkConditions", conditions));
+
+            if (NetworkArchive.isEnabled()) {
+                if (!next.blockedTypes.isEmpty()) {
+                    System.out.println("Resource type blocking is not available while the network archive is in use.");
+                }
+            } else if (!next.blockedTypes.isEmpty()) {
+                List<Map<String, Object>> patterns = new ArrayList<>();
+                for (String type : next.blockedTypes) {
+                    Map<String, Object> pattern = new LinkedHashMap<>();
+                    pattern.put("resourceType", type);
+                    pattern.put("requestStage", "Request");
+                    patterns.add(pattern);
+                }
+                devTools.send(command("Fetch.enable", Collections.singletonMap("patterns", patterns)));
+            } else if (previous != null && !previous.blockedTypes.isEmpty()) {
+                devTools.send(command("Fetch.disable", Collections.emptyMap()));
+            }
+        }
+
+        private void close() {
+            try {
+                devTools.clearListeners();
+            } catch (RuntimeException e) {
+                System.out.println("Unable to stop capturing asset traffic: " + e.getMessage());
+            }
+        }
+
+        private String summarize() {
+            Counters current = counters;
+            LatencyHistogram durations = current.durations;
+            return String.format("Asset policy '%s': %d requests, %.1f KB downloaded, %d blocked, ~%.1f KB saved"
+                    + " | request p50 %.0f ms | p90 %.0f ms | max %.0f ms", current.policy, current.requests.get(),
+                    current.bytes.get() / 1024.0, current.blocked.get(), current.bytesSaved.get() / 1024.0,
+                    durations.getPercentileMillis(50), durations.getPercentileMillis(90), durations.getMaxMillis());
+        }
+    }
+
+    private static final class Counters {
+        private volatile String policy = NONE;
+        private final AtomicInteger requests = new AtomicInteger();
+        private final AtomicInteger blocked = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong bytesSaved = new AtomicLong();
+        private final LatencyHistogram durations = new LatencyHistogram();
+    }
+
+    private static final class Request {
+        private String url;
+        private String type;
+        private double timestamp;
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.network;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.devtools.NetworkInterceptor;
+import org.openqa.selenium.remote.http.Contents;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import snap.constants.CommonConstants;
+import snap.utilities.ConfigReader;
+
+/**
+ * Records the Appian HTTP traffic of browser sessions into an on-disk archive and serves it back.
+ * <p>
+ * Requests to the host of the configured {@code url} are intercepted through the Chrome DevTools
+ * Fetch domain. In record mode every request/response pair is stored: response bodies are kept
+ * once per content hash under {@code bodies/} and {@code index.json} maps request keys to the
+ * recorded responses. In replay mode the same requests are answered from the archive without
+ * reaching the server, optionally after an injected latency.
+ * <p>
+ * Matching is deterministic: a request key is the method, the URL with its query parameters
+ * sorted and the ignored ones removed, and a hash of the request body. The n-th request with a
+ * given key in a session is served the n-th recorded response for that key, and the last one once
+ * the recording is exhausted. When no response was recorded for the exact body, the key without
+ * the body hash is tried.
+ */
+public class NetworkArchive {
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    // Headers that no longer describe the body once it has been decoded by DevTools
+    private static final Set<String> DROPPED_HEADERS = new HashSet<>(
+            Arrays.asList("content-encoding", "content-length", "transfer-encoding"));
+
+    // Checked for every session and every asset policy change, so the mode is read once
+    private static final String MODE = ConfigReader.getValue("network_archive_mode", "off").toLowerCase();
+
+    // Sessions are created and quit on the same test thread
+    private static final ThreadLocal<NetworkInterceptor> interceptor = new ThreadLocal<>();
+    private static NetworkArchive archive;
+
+    private final String mode;
+    private final String host;
+    private final Set<String> ignoredParams;
+    private final long replayLatencyMillis;
+    private final boolean replayRecordedLatency;
+    private final Path directory;
+    private final Path bodies;
+    private final Index index;
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+
+    private NetworkArchive(String mode) throws IOException {
+        this.mode = mode;
+        this.host = URI.create(ConfigReader.getValue("url")).getHost();
+        this.ignoredParams = Arrays.stream(ConfigReader.getValue("network_archive_ignored_params", "").split(","))
+                .map(String::trim).filter(param -> !param.isEmpty()).collect(Collectors.toSet());
+        this.replayLatencyMillis = Long.parseLong(ConfigReader.getValue("network_replay_latency_ms", "0"));
+        this.replayRecordedLatency = Boolean.parseBoolean(
+                ConfigReader.getValue("network_replay_recorded_latency", "false"));
+        this.directory = Paths.get(CommonConstants.getNetworkArchivePath(),
+                ConfigReader.getValue("network_archive_name", "appian"));
+        this.bodies = directory.resolve("bodies");
+        Files.createDirectories(bodies);
+
+        Path indexFile = directory.resolve("index.json");
+        if (mode.equals("replay") && Files.exists(indexFile)) {
+            try (Reader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                this.index = GSON.fromJson(reader, Index.class);
+            }
+            System.out.println("Network archive loaded from " + directory + " (" + index.entries.size()
+                    + " responses)");
+        } else {
+            if (mode.equals("replay")) {
+                System.out.println("No network archive found at " + directory + "; every request will miss.");
+            }
+            this.index = new Index();
+        }
+    }
+
+    /**
+     * Returns whether sessions record or replay traffic. Selected with {@code network_archive_mode}
+     * set to "record" or "replay" in config.properties.
+     *
+     * @return true if the archive is in use
+     */
+    public static boolean isEnabled() {
+        return MODE.equals("record") || MODE.equals("replay");
+    }
+
+    /**
+     * Starts recording or replaying the traffic of the browser session of the current thread.
+     * Does nothing when the archive is off or the driver does not support DevTools.
+     *
+     * @param driver the newly created driver, before any decoration
+     */
+    public static void attach(WebDriver driver) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!(driver instanceof HasDevTools)) {
+            System.out.println("Network archive needs a DevTools capable browser; traffic is not intercepted.");
+            return;
+        }
+        try {
+            NetworkArchive current = getArchive();
+            interceptor.set(new NetworkInterceptor(driver, current.newSessionFilter()));
+        } catch (IOException e) {
+            System.out.println("Unable to open network archive: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops intercepting the traffic of the browser session of the current thread. Call before
+     * quitting the driver.
+     */
+    public static void detach() {
+        NetworkInterceptor current = interceptor.get();
+        interceptor.remove();
+        if (current != null) {
+            close(current);
+        }
+    }
+
+    /**
+     * Returns a task that stops intercepting the traffic of the session of the current thread.
+     * Used when the session is quit by another thread, which cannot {@link #detach()} it.
+     *
+     * @return the task, which does nothing if the session is not intercepted
+     */
+    public static Runnable detachTask() {
+        NetworkInterceptor current = interceptor.get();
+        return current == null ? () -> { } : () -> close(current);
+    }
+
+    private static void close(NetworkInterceptor current) {
+        try {
+            current.close();
+        } catch (RuntimeException e) {
+            System.out.println("Unable to stop network interception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the archive index when recording and prints the archive statistics of the run.
+     */
+    public static synchronized void save() {
+        if (archive == null) {
+            return;
+        }
+        if (archive.mode.equals("record")) {
+            Path indexFile = archive.directory.resolve("index.json");
+            synchronized (archive.index) {
+                try (Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+                    GSON.toJson(archive.index, writer);
+                } catch (IOException e) {
+                    System.out.println("Unable to write network archive index: " + e.getMessage());
+                }
+            }
+            System.out.println("Network archive saved to " + archive.directory + ": " + archive.recorded.get()
+                    + " responses recorded.");
+        } else {
+            System.out.println("Network archive replay: " + archive.replayed.get() + " responses served, "
+                    + archive.missed.get() + " requests not found in the archive.");
+        }
+    }
+
+    private static synchronized NetworkArchive getArchive() throws IOException {
+        if (archive == null) {
+            archive = new NetworkArchive(MODE);
+        }
+        return archive;
+    }
+
+    private Filter newSessionFilter() {
+        // Occurrence counters are per session, so replay does not depend on how tests interleave
+        Map<String, AtomicInteger> occurrences = new ConcurrentHashMap<>();
+        boolean replay = mode.equals("replay");
+        return next -> request -> {
+            URI uri = URI.create(request.getUri());
+            if (!host.equalsIgnoreCase(uri.getHost())) {
+                return next.execute(request);
+            }
+            byte[] requestBody = Contents.bytes(request.getContent());
+            request.setContent(Contents.bytes(requestBody));
+            String looseKey = requestKey(request, uri);
+            String exactKey = looseKey + " #" + sha256(requestBody);
+            if (replay) {
+                return replay(exactKey, looseKey, occurrences);
+            }
+            long start = System.nanoTime();
+            HttpResponse response = next.execute(request);
+            long latencyMillis = (System.nanoTime() - start) / 1_000_000;
+            byte[] body = Contents.bytes(response.getContent());
+            response.setContent(Contents.bytes(body));
+            record(exactKey, looseKey, response, body, latencyMillis);
+            return response;
+        };
+    }
+
+    private String requestKey(HttpRequest request, URI uri) {
+        String query = uri.getRawQuery() == null ? "" : Arrays.stream(uri.getRawQuery().split("&"))
+                .filter(param -> !ignoredParams.contains(param.split("=", 2)[0]))
+                .sorted()
+                .collect(Collectors.joining("&"));
+        return request.getMethod() + " " + uri.getScheme() + "://" + uri.getHost() + uri.getRawPath()
+                + (query.isEmpty() ? "" : "?" + query);
+    }
+
+    private void record(String exactKey, String looseKey, HttpResponse response, byte[] body, long latencyMillis) {
+        Entry entry = new Entry();
+        entry.status = response.getStatus();
+        for (String name : response.getHeaderNames()) {
+            if (!DROPPED_HEADERS.contains(name.toLowerCase())) {
+                List<String> values = new ArrayList<>();
+                response.getHeaders(name).forEach(values::add);
+                entry.headers.put(name, values);
+            }
+        }
+        entry.body = storeBody(body);
+        entry.latencyMillis = latencyMillis;
+        synchronized (index) {
+            int position = index.entries.size();
+            index.entries.add(entry);
+            index.exact.computeIfAbsent(exactKey, key -> new ArrayList<>()).add(position);
+            index.loose.computeIfAbsent(looseKey, key -> new ArrayList<>()).add(position);
+        }
+        recorded.incrementAndGet();
+    }
+
+    private HttpResponse replay(String exactKey, String looseKey, Map<String, AtomicInteger> occurrences) {
+        Entry entry = match(exactKey, index.exact, occurrences);
+        if (entry == null) {
+            entry = match(looseKey, index.loose, occurrences);
+        }
+        if (entry == null) {
+            missed.incrementAndGet();
+            System.out.println("Network archive miss: " + looseKey);
+            HttpResponse notFound = new HttpResponse().setStatus(404);
+            notFound.setContent(Contents.utf8String("Not recorded: " + looseKey));
+            return notFound;
+        }
+
+        long latency = replayRecordedLatency ? entry.latencyMillis + replayLatencyMillis : replayLatencyMillis;
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        HttpResponse response = new HttpResponse().setStatus(entry.status);
+        entry.headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        try {
+            response.setContent(Contents.bytes(Files.readAllBytes(bodies.resolve(entry.body))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        replayed.incrementAndGet();
+        return response;
+    }
+
+    private Entry match(String key, Map<String, List<Integer>> positions, Map<String, AtomicInteger> occurrences) {
+        List<Integer> candidates = positions.get(key);
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+        int occurrence = occurrences.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+        return index.entries.get(candidates.get(Math.min(occurrence, candidates.size() - 1)));
+    }
+
+    private String storeBody(byte[] body) {
+        String name = sha256(body);
+        try {
+            Files.write(bodies.resolve(name), body, StandardOpenOption.CREATE_NEW);
+        } catch (FileAlreadyExistsException e) {
+            // Same content already stored by an earlier response
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return name;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // On-disk index: responses in recording order, and request keys mapped to their positions
+    private static final class Index {
+        private final List<Entry> entries = new ArrayList<>();
+        private final Map<String, List<Integer>> exact = new LinkedHashMap<>();
+        private final Map<String, List<Integer>> loose = new LinkedHashMap<>();
+    }
+
+    private static final class Entry {
+        private int status;
+        private final Map<String, List<String>> headers = new LinkedHashMap<>();
+        private String body;
+        private long latencyMillis;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.pages;
+
+import java.util.List;
+import java.util.function.Function;
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Lazily located element of a page object, created by the generated {@code <Page>Elements}
+ * classes.
+ * <p>
+ * The element is looked up on first use and cached. The interaction methods run against the
+ * cached element and, if the page re-rendered it in the meantime, look it up once more and retry,
+ * so a live element costs no extra round trip and a stale one is replaced transparently.
+ */
+public final class ElementHandle {
+
+    private final WebDriver driver;
+    private final By locator;
+    private WebElement cached;
+
+    /**
+     * Creates a handle for the element found by the locator.
+     *
+     * @param driver  the WebDriver of the page
+     * @param locator the locator declared by the page's {@code @FindBy}
+     */
+    public ElementHandle(WebDriver driver, By locator) {
+        this.driver = driver;
+        this.locator = locator;
+    }
+
+    /**
+     * Returns the locator of the element.
+     *
+     * @return the locator
+     */
+    public By getLocator() {
+        return locator;
+    }
+
+    /**
+     * Returns the element, locating it if it was not located yet.
+     *
+     * @return the element
+     * @throws org.openqa.selenium.NoSuchElementException if the element is not on the page
+     */
+    public WebElement get() {
+        if (cached == null) {
+            cached = driver.findElement(locator);
+        }
+        return cached;
+    }
+
+    /**
+     * Returns every element matched by the locator, always looked up afresh.
+     *
+     * @return the matching elements, empty if there are none
+     */
+    public List<WebElement> getAll() {
+        return driver.findElements(locator);
+    }
+
+    /**
+     * Clicks the element.
+     */
+    public void click() {
+        withElement(element -> {
+            element.click();
+            return null;
+        });
+    }
+
+    /**
+     * Clears the element's value.
+     */
+    public void clear() {
+        withElement(element -> {
+            element.clear();
+            return null;
+        });
+    }
+
+    /**
+     * Types into the element.
+     *
+     * @param keys the keys to type
+     */
+    public void sendKeys(CharSequence... keys) {
+        withElement(element -> {
+            element.sendKeys(keys);
+            return null;
+        });
+    }
+
+    /**
+     * Returns whether the element is displayed.
+     *
+     * @return true if the element is displayed
+     */
+    public boolean isDisplayed() {
+        return withElement(WebElement::isDisplayed);
+    }
+
+    /**
+     * Returns whether the element is enabled.
+     *
+     * @return true if the element is enabled
+     */
+    public boolean isEnabled() {
+        return withElement(WebElement::isEnabled);
+    }
+
+    /**
+     * Returns the visible text of the element.
+     *
+     * @return the text
+     */
+    public String getText() {
+        return withElement(WebElement::getText);
+    }
+
+    /**
+     * Returns an attribute or property of the element.
+     *
+     * @param name the attribute name
+     * @return the value, or null if it is not set
+     */
+    public String getAttribute(String name) {
+        return withElement(element -> element.getAttribute(name));
+    }
+
+    private <T> T withElement(Function<WebElement, T> action) {
+        try {
+            return action.apply(get());
+        } catch (StaleElementReferenceException e) {
+            cached = null;
+            return action.apply(get());
+        }
+    }
+}
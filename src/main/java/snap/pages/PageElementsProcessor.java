@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.pages;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import org.openqa.selenium.support.FindBy;
+import org.openqa.selenium.support.How;
+
+/**
+ * Generates a {@code <Page>Elements} class for every page with {@code @FindBy} fields, so page
+ * objects locate their elements without {@code PageFactory}'s runtime reflection and proxies.
+ * <p>
+ * The fields are declared in a nested locator class of the page that is never instantiated, so
+ * the page itself has no {@code WebElement} field that could be read while still null:
+ * <pre>
+ * private static final class Locators {
+ *     &#64;FindBy(id = "un")
+ *     WebElement username;
+ * }
+ * </pre>
+ * For each field the generated class has an accessor of the same name returning an
+ * {@link ElementHandle} built from the field's locator. A page creates its elements class once in
+ * its constructor and uses the accessors. {@code @FindBy} fields declared directly on a top-level
+ * class are reported as errors.
+ * <p>
+ * Locators are checked while compiling: exactly one strategy must be given, XPath expressions
+ * must parse, class names must be single names and CSS selectors must be balanced, so a typo
+ * fails the build instead of a test.
+ * <p>
+ * The processor is registered through {@code META-INF/services} and runs when the test sources
+ * are compiled.
+ */
+@SupportedAnnotationTypes("org.openqa.selenium.support.FindBy")
+public class PageElementsProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        Map<TypeElement, List<VariableElement>> fieldsByPage = new LinkedHashMap<>();
+        for (Element element : round.getElementsAnnotatedWith(FindBy.class)) {
+            if (element.getKind() != ElementKind.FIELD) {
+                error(element, "@FindBy is only supported on fields");
+                continue;
+            }
+            Element page = element.getEnclosingElement().getEnclosingElement();
+            if (!(page instanceof TypeElement)) {
+                error(element, "@FindBy fields must be declared in a nested locator class of the page, "
+                        + "so the page has no WebElement field that is never initialized");
+                continue;
+            }
+            fieldsByPage.computeIfAbsent((TypeElement) page, key -> new ArrayList<>())
+                    .add((VariableElement) element);
+        }
+        fieldsByPage.forEach(this::generate);
+        // Leave @FindBy claimed by no one, other processors may read it as well
+        return false;
+    }
+
+    private void generate(TypeElement page, List<VariableElement> fields) {
+        String packageName = ((PackageElement) processingEnv.getElementUtils().getPackageOf(page))
+                .getQualifiedName().toString();
+        String className = page.getSimpleName() + "Elements";
+
+        StringBuilder accessors = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        StringBuilder declarations = new StringBuilder();
+        boolean valid = true;
+        for (VariableElement field : fields) {
+            String locator = locatorOf(field);
+            if (locator == null) {
+                valid = false;
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            declarations.append("    private final ElementHandle ").append(name).append(";\n");
+            assignments.append("        this.").append(name).append(" = new ElementHandle(driver, ")
+                    .append(locator).append(");\n");
+            accessors.append("\n    /**\n     * Returns the element declared by {@code ").append(page.getSimpleName())
+                    .append('.').append(field.getEnclosingElement().getSimpleName()).append('.').append(name)
+                    .append("}.\n     *\n     * @return the element handle\n     */\n")
+                    .append("    public ElementHandle ").append(name).append("() {\n        return ").append(name)
+                    .append(";\n    }\n");
+        }
+        if (!valid) {
+            return;
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import javax.annotation.processing.Generated;\n")
+                .append("import org.openqa.selenium.By;\n")
+                .append("import org.openqa.selenium.WebDriver;\n")
+                .append("import snap.pages.ElementHandle;\n\n")
+                .append("/**\n * Element accessors of {@link ").append(page.getSimpleName())
+                .append("}, generated from its {@code @FindBy} fields.\n */\n")
+                .append("@Generated(\"").append(PageElementsProcessor.class.getName()).append("\")\n")
+                .append("public final class ").append(className).append(" {\n\n")
+                .append(declarations)
+                .append("\n    /**\n     * Creates the accessors for a page shown by the driver. No element is located")
+                .append(" yet.\n")
+                .append("     *\n     * @param driver the WebDriver of the page\n     */\n")
+                .append("    public ").append(className).append("(WebDriver driver) {\n")
+                .append(assignments)
+                .append("    }\n")
+                .append(accessors)
+                .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, page).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            error(page, "Unable to generate " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Builds the {@code By} expression of a field's locator, reporting an error on the field if the
+     * locator is invalid.
+     *
+     * @param field the annotated field
+     * @return the Java expression creating the locator, or null if it is invalid
+     */
+    private String locatorOf(VariableElement field) {
+        FindBy findBy = field.getAnnotation(FindBy.class);
+        List<String[]> strategies = new ArrayList<>();
+        addStrategy(strategies, "id", findBy.id());
+        addStrategy(strategies, "name", findBy.name());
+        addStrategy(strategies, "className", findBy.className());
+        addStrategy(strategies, "cssSelector", findBy.css());
+        addStrategy(strategies, "tagName", findBy.tagName());
+        addStrategy(strategies, "linkText", findBy.linkText());
+        addStrategy(strategies, "partialLinkText", findBy.partialLinkText());
+        addStrategy(strategies, "xpath", findBy.xpath());
+        if (findBy.how() != How.UNSET) {
+            addStrategy(strategies, strategyOf(findBy.how()), findBy.using());
+        }
+        if (strategies.size() != 1) {
+            error(field, "@FindBy must declare exactly one locator, found " + strategies.size());
+            return null;
+        }
+        String strategy = strategies.get(0)[0];
+        String value = strategies.get(0)[1];
+        String problem = validate(strategy, value);
+        if (problem != null) {
+            error(field, "Invalid @FindBy " + strategy + " locator '" + value + "': " + problem);
+            return null;
+        }
+        if (strategy.equals("idOrName")) {
+            return "new org.openqa.selenium.support.pagefactory.ByIdOrName(" + literal(value) + ")";
+        }
+        return "By." + strategy + "(" + literal(value) + ")";
+    }
+
+    private static void addStrategy(List<String[]> strategies, String strategy, String value) {
+        if (!value.isEmpty()) {
+            strategies.add(new String[] {strategy, value});
+        }
+    }
+
+    private static String strategyOf(How how) {
+        switch (how) {
+            case CLASS_NAME:
+                return "className";
+            case CSS:
+                return "cssSelector";
+            case ID:
+                return "id";
+            case ID_OR_NAME:
+                return "idOrName";
+            case LINK_TEXT:
+                return "linkText";
+            case NAME:
+                return "name";
+            case PARTIAL_LINK_TEXT:
+                return "partialLinkText";
+            case TAG_NAME:
+                return "tagName";
+            default:
+                return "xpath";
+        }
+    }
+
+    /**
+     * Checks a locator value for the mistakes that would otherwise only show up when a test runs.
+     *
+     * @param strategy the locator strategy
+     * @param value    the locator value
+     * @return a description of the problem, or null if the locator looks valid
+     */
+    static String validate(String strategy, String value) {
+        if (value.trim().isEmpty()) {
+            return "the value is blank";
+        }
+        switch (strategy) {
+            case "xpath":
+                try {
+                    XPathFactory.newInstance().newXPath().compile(value);
+                    return null;
+                } catch (XPathExpressionException e) {
+                    return "not a valid XPath expression" + (e.getMessage() != null ? " (" + e.getMessage() + ")" : "");
+                }
+            case "className":
+                if (!value.equals(value.trim())) {
+                    return "the class name has surrounding whitespace";
+                }
+                return value.matches(".*\\s.*") ? "compound class names are not supported, use a CSS selector" : null;
+            case "tagName":
+                return value.matches("[A-Za-z][\\w-]*") ? null : "not a tag name";
+            case "cssSelector":
+                return checkBalanced(value);
+            default:
+                return null;
+        }
+    }
+
+    private static String checkBalanced(String css) {
+        int brackets = 0;
+        int parentheses = 0;
+        char quote = 0;
+        for (char c : css.toCharArray()) {
+            if (quote != 0) {
+                quote = c == quote ? 0 : quote;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '[') {
+                brackets++;
+            } else if (c == ']' && --brackets < 0) {
+                return "unexpected ']'";
+            } else if (c == '(') {
+                parentheses++;
+            } else if (c == ')' && --parentheses < 0) {
+                return "unexpected ')'";
+            }
+        }
+        if (quote != 0) {
+            return "unterminated string";
+        }
+        return brackets != 0 || parentheses != 0 ? "unbalanced brackets" : null;
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                default:
+                    literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
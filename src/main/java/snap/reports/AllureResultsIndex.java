@@ -0,0 +1,516 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.reports;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import snap.constants.CommonConstants;
+
+/**
+ * Incremental, column-oriented index over the Allure result files of previous runs.
+ * <p>
+ * Every {@code *-result.json} file is parsed exactly once and appended as a row to a set of
+ * primitive columns (test, status, start, duration, failing step). The columns are persisted to a
+ * compact binary file, so later queries for flake rates, duration percentiles and failing steps
+ * only scan arrays instead of re-reading JSON.
+ */
+public class AllureResultsIndex {
+
+    // Binary file header, bumped whenever the column layout changes
+    private static final String MAGIC = "SNAPIDX1";
+
+    // Status codes stored in the status column
+    public static final byte STATUS_PASSED = 0;
+    public static final byte STATUS_FAILED = 1;
+    public static final byte STATUS_BROKEN = 2;
+    public static final byte STATUS_SKIPPED = 3;
+    public static final byte STATUS_UNKNOWN = 4;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final File resultsDirectory;
+    private final File indexFile;
+
+    // Dictionaries: historyId -> test id, test id -> full name, step name -> step id
+    private final Map<String, Integer> testIds = new HashMap<>();
+    private final List<String> historyIds = new ArrayList<>();
+    private final List<String> testNames = new ArrayList<>();
+    private final Map<String, Integer> stepIds = new HashMap<>();
+    private final List<String> stepNames = new ArrayList<>();
+
+    // Result files already folded into the columns
+    private final Set<String> indexedFiles = new HashSet<>();
+
+    // Columns, one entry per indexed result
+    private int rowCount;
+    private int[] testColumn = new int[64];
+    private byte[] statusColumn = new byte[64];
+    private long[] startColumn = new long[64];
+    private long[] durationColumn = new long[64];
+    private int[] failedStepColumn = new int[64];
+
+    // Row numbers grouped per test, rebuilt lazily after the columns change
+    private int[][] rowsByTest;
+
+    /**
+     * Creates an index for the given Allure results directory backed by the given index file.
+     *
+     * @param resultsDirectory the directory containing Allure result JSON files
+     * @param indexFile        the binary file holding the persisted columns
+     */
+    public AllureResultsIndex(File resultsDirectory, File indexFile) {
+        this.resultsDirectory = resultsDirectory;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Opens the index configured for this project, loading any previously persisted columns
+     * and folding in result files written since the last refresh.
+     *
+     * @return the refreshed index
+     */
+    public static AllureResultsIndex openDefault() {
+        AllureResultsIndex index = new AllureResultsIndex(new File(CommonConstants.getAllureResultsPath()),
+                new File(CommonConstants.getAnalyticsIndexFilePath()));
+        index.load();
+        index.refresh();
+        return index;
+    }
+
+    /**
+     * Loads the persisted columns from the index file, if one exists.
+     */
+    public synchronized void load() {
+        if (!indexFile.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (!MAGIC.equals(in.readUTF())) {
+                System.out.println("Ignoring analytics index with unknown format: " + indexFile.getPath());
+                return;
+            }
+            int testCount = in.readInt();
+            for (int i = 0; i < testCount; i++) {
+                String historyId = in.readUTF();
+                testIds.put(historyId, i);
+                historyIds.add(historyId);
+                testNames.add(in.readUTF());
+            }
+            int stepCount = in.readInt();
+            for (int i = 0; i < stepCount; i++) {
+                String stepName = in.readUTF();
+                stepIds.put(stepName, i);
+                stepNames.add(stepName);
+            }
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                indexedFiles.add(in.readUTF());
+            }
+            int rows = in.readInt();
+            ensureCapacity(rows);
+            for (int i = 0; i < rows; i++) {
+                testColumn[i] = in.readInt();
+            }
+            in.readFully(statusColumn, 0, rows);
+            for (int i = 0; i < rows; i++) {
+                startColumn[i] = in.readLong();
+            }
+            for (int i = 0; i < rows; i++) {
+                durationColumn[i] = in.readLong();
+            }
+            for (int i = 0; i < rows; i++) {
+                failedStepColumn[i] = in.readInt();
+            }
+            rowCount = rows;
+            rowsByTest = null;
+        } catch (IOException e) {
+            System.out.println("Unable to load analytics index, rebuilding from results: " + e);
+            clear();
+        }
+    }
+
+    /**
+     * Indexes every result file not seen before and persists the index if anything changed.
+     *
+     * @return the number of newly indexed results
+     */
+    public synchronized int refresh() {
+        File[] files = resultsDirectory.listFiles((dir, name) -> name.endsWith("-result.json"));
+        if (files == null) {
+            return 0;
+        }
+        int added = 0;
+        for (File file : files) {
+            if (indexedFiles.contains(file.getName())) {
+                continue;
+            }
+            try {
+                appendResult(MAPPER.readTree(file));
+                indexedFiles.add(file.getName());
+                added++;
+            } catch (IOException e) {
+                System.out.println("Unable to index result file '" + file.getName() + "': " + e.getMessage());
+            }
+        }
+        if (added > 0) {
+            save();
+        }
+        return added;
+    }
+
+    /**
+     * Writes the columns to the index file.
+     */
+    public synchronized void save() {
+        File parent = indexFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            System.out.println("Unable to create analytics index folder: " + parent.getPath());
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)))) {
+            out.writeUTF(MAGIC);
+            out.writeInt(historyIds.size());
+            for (int i = 0; i < historyIds.size(); i++) {
+                out.writeUTF(historyIds.get(i));
+                out.writeUTF(testNames.get(i));
+            }
+            out.writeInt(stepNames.size());
+            for (String stepName : stepNames) {
+                out.writeUTF(stepName);
+            }
+            out.writeInt(indexedFiles.size());
+            for (String fileName : indexedFiles) {
+                out.writeUTF(fileName);
+            }
+            out.writeInt(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                out.writeInt(testColumn[i]);
+            }
+            out.write(statusColumn, 0, rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                out.writeLong(startColumn[i]);
+            }
+            for (int i = 0; i < rowCount; i++) {
+                out.writeLong(durationColumn[i]);
+            }
+            for (int i = 0; i < rowCount; i++) {
+                out.writeInt(failedStepColumn[i]);
+            }
+        } catch (IOException e) {
+            System.out.println("Unable to write analytics index: " + e);
+        }
+    }
+
+    /**
+     * Returns the number of results held in the index.
+     *
+     * @return the row count
+     */
+    public synchronized int size() {
+        return rowCount;
+    }
+
+    /**
+     * Calculates the flake rate of every test with at least two recorded runs. The flake rate is
+     * the share of consecutive runs in which the outcome flipped between passing and failing.
+     *
+     * @return a map of test full name to flake rate (0.0 - 1.0), ordered from most to least flaky
+     */
+    public synchronized Map<String, Double> getFlakeRates() {
+        Map<String, Double> rates = new HashMap<>();
+        for (int test = 0; test < historyIds.size(); test++) {
+            int[] rows = rowsForTest(test);
+            int runs = 0;
+            int flips = 0;
+            byte previous = -1;
+            for (int row : rows) {
+                byte status = statusColumn[row];
+                if (status == STATUS_SKIPPED || status == STATUS_UNKNOWN) {
+                    continue;
+                }
+                boolean passed = status == STATUS_PASSED;
+                if (previous != -1 && passed != (previous == STATUS_PASSED)) {
+                    flips++;
+                }
+                previous = status;
+                runs++;
+            }
+            if (runs > 1) {
+                rates.merge(testNames.get(test), (double) flips / (runs - 1), Math::max);
+            }
+        }
+        return sortByValueDescending(rates);
+    }
+
+    /**
+     * Calculates a duration percentile for a test over its most recent runs.
+     *
+     * @param fullName   the test full name (for example {@code nexus.testcases.login.LoginTest.TC_LoginTest})
+     * @param percentile the percentile to calculate, between 0 and 100
+     * @param lastRuns   the number of most recent runs to consider, or 0 for all runs
+     * @return the duration in milliseconds, or -1 if the test has no recorded runs
+     */
+    public synchronized long getDurationPercentile(String fullName, double percentile, int lastRuns) {
+        long[] durations = durationsForName(fullName);
+        if (durations.length == 0) {
+            return -1;
+        }
+        int from = (lastRuns > 0 && lastRuns < durations.length) ? durations.length - lastRuns : 0;
+        long[] window = Arrays.copyOfRange(durations, from, durations.length);
+        Arrays.sort(window);
+        int rank = (int) Math.ceil(percentile / 100.0 * window.length) - 1;
+        return window[Math.max(0, Math.min(rank, window.length - 1))];
+    }
+
+    /**
+     * Returns p50 and p95 durations of every test, comparing the most recent runs with the runs
+     * before them. Each value is {@code {recentP50, recentP95, previousP50, previousP95}} in
+     * milliseconds; previous values are -1 when there is not enough history.
+     *
+     * @param window the number of runs in each comparison window
+     * @return a map of test full name to duration trend values
+     */
+    public synchronized Map<String, long[]> getDurationTrends(int window) {
+        Map<String, long[]> trends = new LinkedHashMap<>();
+        for (String name : new HashSet<>(testNames)) {
+            long[] durations = durationsForName(name);
+            if (durations.length == 0) {
+                continue;
+            }
+            int recentFrom = Math.max(0, durations.length - window);
+            long[] recent = Arrays.copyOfRange(durations, recentFrom, durations.length);
+            long[] previous = Arrays.copyOfRange(durations, Math.max(0, recentFrom - window), recentFrom);
+            trends.put(name, new long[] { percentileOf(recent, 50), percentileOf(recent, 95),
+                    percentileOf(previous, 50), percentileOf(previous, 95) });
+        }
+        return trends;
+    }
+
+    /**
+     * Counts how often each step was the innermost failing step of a failed or broken result.
+     *
+     * @param limit the maximum number of steps to return
+     * @return a map of step name to failure count, ordered from most to least frequent
+     */
+    public synchronized Map<String, Integer> getMostFailingSteps(int limit) {
+        int[] counts = new int[stepNames.size()];
+        for (int i = 0; i < rowCount; i++) {
+            if (failedStepColumn[i] >= 0) {
+                counts[failedStepColumn[i]]++;
+            }
+        }
+        Map<String, Double> byCount = new HashMap<>();
+        for (int step = 0; step < counts.length; step++) {
+            if (counts[step] > 0) {
+                byCount.put(stepNames.get(step), (double) counts[step]);
+            }
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> entry : sortByValueDescending(byCount).entrySet()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.put(entry.getKey(), entry.getValue().intValue());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the median duration of a test, used to order long-running tests first.
+     *
+     * @param fullName the test full name
+     * @return the median duration in milliseconds, or -1 if the test has no recorded runs
+     */
+    public long getExpectedDuration(String fullName) {
+        return getDurationPercentile(fullName, 50, 0);
+    }
+
+    private void appendResult(JsonNode result) {
+        String historyId = result.path("historyId").asText(result.path("fullName").asText());
+        String fullName = result.path("fullName").asText(historyId);
+        Integer test = testIds.get(historyId);
+        if (test == null) {
+            test = historyIds.size();
+            testIds.put(historyId, test);
+            historyIds.add(historyId);
+            testNames.add(fullName);
+        }
+
+        long start = result.path("start").asLong();
+        long stop = result.path("stop").asLong(start);
+        byte status = statusCode(result.path("status").asText());
+
+        int failedStep = -1;
+        if (status == STATUS_FAILED || status == STATUS_BROKEN) {
+            String stepName = findFailingStep(result.path("steps"));
+            if (stepName != null) {
+                failedStep = stepIds.computeIfAbsent(stepName, name -> {
+                    stepNames.add(name);
+                    return stepNames.size() - 1;
+                });
+            }
+        }
+
+        ensureCapacity(rowCount + 1);
+        testColumn[rowCount] = test;
+        statusColumn[rowCount] = status;
+        startColumn[rowCount] = start;
+        durationColumn[rowCount] = Math.max(0, stop - start);
+        failedStepColumn[rowCount] = failedStep;
+        rowCount++;
+        rowsByTest = null;
+    }
+
+    private String findFailingStep(JsonNode steps) {
+        for (JsonNode step : steps) {
+            String status = step.path("status").asText();
+            if ("failed".equals(status) || "broken".equals(status)) {
+                String nested = findFailingStep(step.path("steps"));
+                return nested != null ? nested : step.path("name").asText();
+            }
+        }
+        return null;
+    }
+
+    private static byte statusCode(String status) {
+        switch (status) {
+            case "passed":
+                return STATUS_PASSED;
+            case "failed":
+                return STATUS_FAILED;
+            case "broken":
+                return STATUS_BROKEN;
+            case "skipped":
+                return STATUS_SKIPPED;
+            default:
+                return STATUS_UNKNOWN;
+        }
+    }
+
+    // Rows of a single test ordered by start time, grouped once per change of the columns
+    private int[] rowsForTest(int test) {
+        if (rowsByTest == null) {
+            int[] counts = new int[historyIds.size()];
+            for (int i = 0; i < rowCount; i++) {
+                counts[testColumn[i]]++;
+            }
+            Integer[][] grouped = new Integer[counts.length][];
+            for (int t = 0; t < counts.length; t++) {
+                grouped[t] = new Integer[counts[t]];
+                counts[t] = 0;
+            }
+            for (int i = 0; i < rowCount; i++) {
+                grouped[testColumn[i]][counts[testColumn[i]]++] = i;
+            }
+            int[][] sorted = new int[grouped.length][];
+            for (int t = 0; t < grouped.length; t++) {
+                Arrays.sort(grouped[t], (a, b) -> Long.compare(startColumn[a], startColumn[b]));
+                sorted[t] = new int[grouped[t].length];
+                for (int i = 0; i < grouped[t].length; i++) {
+                    sorted[t][i] = grouped[t][i];
+                }
+            }
+            rowsByTest = sorted;
+        }
+        return rowsByTest[test];
+    }
+
+    // Durations of every non-skipped run of the tests with the given name, oldest first
+    private long[] durationsForName(String fullName) {
+        List<int[]> perTest = new ArrayList<>();
+        int total = 0;
+        for (int test = 0; test < testNames.size(); test++) {
+            if (testNames.get(test).equals(fullName)) {
+                int[] rows = rowsForTest(test);
+                perTest.add(rows);
+                total += rows.length;
+            }
+        }
+        int[] rows = new int[total];
+        int offset = 0;
+        for (int[] testRows : perTest) {
+            System.arraycopy(testRows, 0, rows, offset, testRows.length);
+            offset += testRows.length;
+        }
+        long[] durations = new long[total];
+        int count = 0;
+        for (int row : rows) {
+            if (statusColumn[row] != STATUS_SKIPPED) {
+                durations[count++] = durationColumn[row];
+            }
+        }
+        return Arrays.copyOf(durations, count);
+    }
+
+    private static long percentileOf(long[] values, double percentile) {
+        if (values.length == 0) {
+            return -1;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+
+    private static Map<String, Double> sortByValueDescending(Map<String, Double> values) {
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(values.entrySet());
+        entries.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+        Map<String, Double> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Double> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= testColumn.length) {
+            return;
+        }
+        int capacity = Math.max(required, testColumn.length * 2);
+        testColumn = Arrays.copyOf(testColumn, capacity);
+        statusColumn = Arrays.copyOf(statusColumn, capacity);
+        startColumn = Arrays.copyOf(startColumn, capacity);
+        durationColumn = Arrays.copyOf(durationColumn, capacity);
+        failedStepColumn = Arrays.copyOf(failedStepColumn, capacity);
+    }
+
+    private void clear() {
+        testIds.clear();
+        historyIds.clear();
+        testNames.clear();
+        stepIds.clear();
+        stepNames.clear();
+        indexedFiles.clear();
+        rowCount = 0;
+        rowsByTest = null;
+    }
+}
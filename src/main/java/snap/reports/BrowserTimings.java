@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.reports;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.Status;
+import snap.utilities.ActionTimer;
+
+/**
+ * Test durations per browser, used to compare browsers in a cross-browser matrix run.
+ */
+public class BrowserTimings {
+
+    private static final Map<String, LatencyHistogram> byBrowser = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, LatencyHistogram>> byTest = new ConcurrentHashMap<>();
+
+    /**
+     * Records the duration of a finished test.
+     *
+     * @param browser  the browser the test ran on
+     * @param testName the test name, without the browser
+     * @param millis   the test duration in milliseconds
+     */
+    public static void record(String browser, String testName, long millis) {
+        long nanos = millis * 1_000_000;
+        byBrowser.computeIfAbsent(browser, key -> new LatencyHistogram()).recordNanos(nanos);
+        byTest.computeIfAbsent(testName, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(browser, key -> new LatencyHistogram()).recordNanos(nanos);
+    }
+
+    /**
+     * Adds a per-browser summary to the report's system info and a comparison table of every
+     * test's mean duration per browser. Does nothing unless more than one browser ran.
+     *
+     * @param extentReport the report to add to
+     */
+    public static void addToReport(ExtentReports extentReport) {
+        if (byBrowser.size() < 2) {
+            return;
+        }
+        Set<String> browsers = new TreeSet<>(byBrowser.keySet());
+        for (String browser : browsers) {
+            extentReport.setSystemInfo("Browser: " + browser, ActionTimer.summarize(byBrowser.get(browser)));
+        }
+
+        StringBuilder html = new StringBuilder("<table class='table table-sm'><tr><th>Test</th>");
+        browsers.forEach(browser -> html.append("<th>").append(browser).append(" (ms)</th>"));
+        html.append("</tr>");
+        new TreeMap<>(byTest).forEach((testName, histograms) -> {
+            html.append("<tr><td>").append(testName).append("</td>");
+            for (String browser : browsers) {
+                LatencyHistogram histogram = histograms.get(browser);
+                html.append("<td>").append(histogram == null ? "-" : String.format("%.0f", histogram.getMeanMillis()))
+                        .append("</td>");
+            }
+            html.append("</tr>");
+        });
+        html.append("<tr><td><b>Total</b></td>");
+        browsers.forEach(browser -> html.append(String.format("<td><b>%.0f</b></td>",
+                byBrowser.get(browser).getTotalMillis())));
+        html.append("</tr></table>");
+
+        extentReport.createTest("Cross-browser timings").log(Status.INFO, html.toString());
+    }
+}
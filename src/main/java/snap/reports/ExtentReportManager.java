@@ -17,12 +17,19 @@ package snap.reports;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
 import snap.constants.CommonConstants;
+import snap.reports.jfr.ReportWriteEvent;
+import snap.utilities.ActionTimer;
 import snap.utilities.ConfigReader;
+import snap.utilities.EnvironmentCircuitBreaker;
+import snap.utilities.SessionWatchdog;
 
 public class ExtentReportManager {
 
@@ -102,7 +109,26 @@ public class ExtentReportManager {
 
             // Add the total execution time to the Extent report
             extentReport.setSystemInfo("Total Execution Time", totalTime);
+            addRunHistoryInfo();
+            addActionTimingInfo();
+            BrowserTimings.addToReport(extentReport);
+            List<String> reclaimedSessions = SessionWatchdog.getReclaimedSessions();
+            extentReport.setSystemInfo("Leaked Sessions Reclaimed", reclaimedSessions.isEmpty() ? "None"
+                    : reclaimedSessions.size() + ": " + String.join("; ", reclaimedSessions));
+            if (EnvironmentCircuitBreaker.isEnabled()) {
+                extentReport.setSystemInfo("Environment Circuit Breaker", EnvironmentCircuitBreaker.describe());
+            }
+
+            ReportWriteEvent event = new ReportWriteEvent();
+            event.begin();
             extentReport.flush();
+            RunMetrics.reportFlushed();
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = "flushExtentReport";
+                event.path = extentReportFile;
+                event.commit();
+            }
         }
     }
 
@@ -116,6 +142,44 @@ public class ExtentReportManager {
         if (extentReport == null) {
             setupExtentReport();
         }
+        RunMetrics.reportEntryQueued();
         return extentReport.createTest(testName);
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds the latency percentiles of every framework action to the report's system info and
+     * exports all action timings as JSON next to the report.
+     */
+    private static void addActionTimingInfo() {
+        ActionTimer.getActionHistograms().forEach((action, histogram) ->
+                extentReport.setSystemInfo("Action: " + action, ActionTimer.summarize(histogram)));
+        ActionTimer.exportJson(CommonConstants.getExtentReportFilePath() + "ActionTimings_"
+                + new SimpleDateFormat("ddMMyyyy_HHmmss").format(new Date()) + ".json");
+    }
+
+    /**
+     * Adds flakiness and failing-step insights from previous runs to the report's system info.
+     */
+    private static void addRunHistoryInfo() {
+        try {
+            AllureResultsIndex index = AllureResultsIndex.openDefault();
+            if (index.size() == 0) {
+                return;
+            }
+            String flakyTests = index.getFlakeRates().entrySet().stream()
+                    .filter(entry -> entry.getValue() > 0)
+                    .limit(5)
+                    .map(entry -> entry.getKey() + " (" + Math.round(entry.getValue() * 100) + "%)")
+                    .collect(Collectors.joining(", "));
+            Map<String, Integer> failingSteps = index.getMostFailingSteps(3);
+            extentReport.setSystemInfo("Indexed Historical Results", String.valueOf(index.size()));
+            extentReport.setSystemInfo("Flakiest Tests", flakyTests.isEmpty() ? "None" : flakyTests);
+            extentReport.setSystemInfo("Most Failing Steps", failingSteps.isEmpty() ? "None"
+                    : failingSteps.entrySet().stream()
+                            .map(entry -> entry.getKey() + " (" + entry.getValue() + ")")
+                            .collect(Collectors.joining(", ")));
+        } catch (Exception e) {
+            System.out.println("Unable to add run history to the report: " + e);
+        }
+    }
+}
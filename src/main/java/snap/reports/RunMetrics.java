@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.reports;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Suite-level runtime counters exposed in the OpenMetrics text format.
+ * <p>
+ * Framework code only performs atomic increments; values are read and formatted when the
+ * {@code /metrics} endpoint is scraped.
+ */
+public class RunMetrics {
+
+    private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    // Browser sessions
+    private static final AtomicLong sessionsCreated = new AtomicLong();
+    private static final AtomicLong sessionsClosed = new AtomicLong();
+
+    // Tests
+    private static final AtomicLong testsPlanned = new AtomicLong();
+    private static final AtomicLong testsStarted = new AtomicLong();
+    private static final AtomicLong testsRunning = new AtomicLong();
+    private static final AtomicLong testsPassed = new AtomicLong();
+    private static final AtomicLong testsFailed = new AtomicLong();
+    private static final AtomicLong testsSkipped = new AtomicLong();
+    private static final AtomicLong testsSkippedBeforeStart = new AtomicLong();
+
+    // Reporting
+    private static final AtomicLong screenshotBytes = new AtomicLong();
+    private static final AtomicLong stepRetries = new AtomicLong();
+    private static final AtomicLong reportQueueDepth = new AtomicLong();
+
+    // Whether the test on the current thread was counted as running
+    private static final ThreadLocal<Boolean> running = new ThreadLocal<>();
+
+    private static volatile HttpServer server;
+
+    /**
+     * Starts the metrics endpoint at http://{host}:{port}/metrics. Calling it again while
+     * running has no effect.
+     *
+     * @param host the address to listen on, normally localhost; use 0.0.0.0 only when a scraper
+     *             on another machine needs to reach the endpoint
+     * @param port the local port to listen on
+     */
+    public static synchronized void startServer(String host, int port) {
+        if (server != null) {
+            return;
+        }
+        try {
+            HttpServer httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+            httpServer.createContext("/metrics", RunMetrics::serveMetrics);
+            httpServer.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "run-metrics-http");
+                thread.setDaemon(true);
+                return thread;
+            }));
+            httpServer.start();
+            server = httpServer;
+            System.out.println("Run metrics available at http://" + host + ":" + port + "/metrics");
+        } catch (IOException e) {
+            System.out.println("Unable to start metrics endpoint on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the metrics endpoint.
+     */
+    public static synchronized void stopServer() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Counts a newly started browser session. Sessions reused from elsewhere, such as parked
+     * sessions, are not counted again.
+     */
+    public static void sessionCreated() {
+        sessionsCreated.incrementAndGet();
+    }
+
+    /**
+     * Counts a browser session that was quit.
+     */
+    public static void sessionClosed() {
+        sessionsClosed.incrementAndGet();
+    }
+
+    /**
+     * Adds test methods to the number of planned tests.
+     *
+     * @param count the number of planned test methods
+     */
+    public static void testsPlanned(int count) {
+        testsPlanned.addAndGet(count);
+    }
+
+    /**
+     * Counts a test starting on the current thread.
+     */
+    public static void testStarted() {
+        testsStarted.incrementAndGet();
+        testsRunning.incrementAndGet();
+        running.set(Boolean.TRUE);
+    }
+
+    /**
+     * Counts the test on the current thread as finished.
+     *
+     * @param status the outcome: "passed", "failed" or "skipped"
+     */
+    public static void testFinished(String status) {
+        if (Boolean.TRUE.equals(running.get())) {
+            testsRunning.decrementAndGet();
+            running.remove();
+        } else if ("skipped".equals(status)) {
+            testsSkippedBeforeStart.incrementAndGet();
+        }
+        switch (status) {
+            case "passed":
+                testsPassed.incrementAndGet();
+                break;
+            case "failed":
+                testsFailed.incrementAndGet();
+                break;
+            default:
+                testsSkipped.incrementAndGet();
+                break;
+        }
+    }
+
+    /**
+     * Adds to the number of screenshot bytes written to disk, once the file has been written.
+     *
+     * @param bytes the size of the screenshot file
+     */
+    public static void screenshotWritten(long bytes) {
+        screenshotBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Counts a step retried after a transient failure.
+     */
+    public static void stepRetried() {
+        stepRetries.incrementAndGet();
+    }
+
+    /**
+     * Counts a test entry added to the report and not yet flushed.
+     */
+    public static void reportEntryQueued() {
+        reportQueueDepth.incrementAndGet();
+    }
+
+    /**
+     * Resets the report queue depth after the report was flushed.
+     */
+    public static void reportFlushed() {
+        reportQueueDepth.set(0);
+    }
+
+    /**
+     * Renders all metrics in the OpenMetrics text format.
+     *
+     * @return the metrics exposition
+     */
+    public static String render() {
+        StringBuilder out = new StringBuilder(2048);
+        long created = sessionsCreated.get();
+        long closed = sessionsClosed.get();
+        gauge(out, "snap_browser_sessions_active", "Browser sessions currently open", Math.max(0, created - closed));
+        counter(out, "snap_browser_sessions_created", "Browser sessions created", created);
+        counter(out, "snap_browser_sessions_recycled", "Browser sessions quit after use", closed);
+
+        long queued = testsPlanned.get() - testsStarted.get() - testsSkippedBeforeStart.get();
+        gauge(out, "snap_tests_queued", "Test methods not started yet", Math.max(0, queued));
+        gauge(out, "snap_tests_running", "Test methods currently running", testsRunning.get());
+        out.append("# TYPE snap_tests counter\n# HELP snap_tests Finished test methods by status\n");
+        out.append("snap_tests_total{status=\"passed\"} ").append(testsPassed.get()).append('\n');
+        out.append("snap_tests_total{status=\"failed\"} ").append(testsFailed.get()).append('\n');
+        out.append("snap_tests_total{status=\"skipped\"} ").append(testsSkipped.get()).append('\n');
+
+        counter(out, "snap_screenshot_bytes", "Bytes of screenshot files written", screenshotBytes.get());
+        counter(out, "snap_step_retries", "Steps retried after a transient failure", stepRetries.get());
+        gauge(out, "snap_report_queue_depth", "Report entries waiting for the next flush", reportQueueDepth.get());
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        gauge(out, "snap_jvm_heap_used_bytes", "JVM heap in use", heap.getUsed());
+        gauge(out, "snap_jvm_heap_committed_bytes", "JVM heap committed", heap.getCommitted());
+        gauge(out, "snap_jvm_heap_max_bytes", "JVM maximum heap", heap.getMax());
+        return out.append("# EOF\n").toString();
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        out.append("# TYPE ").append(name).append(" gauge\n# HELP ").append(name).append(' ').append(help)
+                .append('\n').append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# TYPE ").append(name).append(" counter\n# HELP ").append(name).append(' ').append(help)
+                .append('\n').append(name).append("_total ").append(value).append('\n');
+    }
+
+    private static void serveMetrics(HttpExchange exchange) throws IOException {
+        byte[] body = render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
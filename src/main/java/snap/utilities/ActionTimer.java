@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import com.google.gson.GsonBuilder;
+import snap.reports.LatencyHistogram;
+import snap.reports.jfr.ActionEvent;
+import snap.reports.jfr.ReportWriteEvent;
+
+public class ActionTimer {
+
+    // Histograms keyed by action, by action and argument, and by test and action
+    private static final Map<String, LatencyHistogram> byAction = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> byActionArgument = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, LatencyHistogram>> byTest = new ConcurrentHashMap<>();
+
+    // Name of the test running on the current thread, set by the report listener
+    private static final ThreadLocal<String> currentTest = new ThreadLocal<>();
+
+    /**
+     * Starts timing an action. Use with try-with-resources so the timing is recorded even when
+     * the action throws. Within a test, the action also counts as a step of its
+     * {@link DeadlineBudget}.
+     *
+     * @param action   the action name, for example "clickOnButton"
+     * @param argument the identifying argument, for example the button name, or null
+     * @return the running timing
+     * @throws DeadlineBudget.ExhaustedException if the deadline budget of the test is exhausted
+     */
+    public static Timing time(String action, String argument) {
+        SessionWatchdog.touch();
+        DeadlineBudget.enterStep(action, argument);
+        return new Timing(action, argument);
+    }
+
+    /**
+     * Associates the current thread with a test so its action timings are grouped per test.
+     *
+     * @param testName the test name, or null to clear it
+     */
+    public static void setCurrentTest(String testName) {
+        if (testName == null) {
+            currentTest.remove();
+        } else {
+            currentTest.set(testName);
+        }
+    }
+
+    /**
+     * Returns the name of the test running on the current thread.
+     *
+     * @return the test name, or null if no test is running
+     */
+    public static String getCurrentTest() {
+        return currentTest.get();
+    }
+
+    /**
+     * Records an already measured action duration.
+     *
+     * @param action   the action name
+     * @param argument the identifying argument, or null
+     * @param nanos    the duration in nanoseconds
+     */
+    public static void record(String action, String argument, long nanos) {
+        byAction.computeIfAbsent(action, key -> new LatencyHistogram()).recordNanos(nanos);
+        if (argument != null) {
+            byActionArgument.computeIfAbsent(action + " [" + argument + "]", key -> new LatencyHistogram())
+                    .recordNanos(nanos);
+        }
+        String testName = currentTest.get();
+        if (testName != null) {
+            byTest.computeIfAbsent(testName, key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(action, key -> new LatencyHistogram()).recordNanos(nanos);
+        }
+    }
+
+    /**
+     * Returns the histograms of every action across the run.
+     *
+     * @return a sorted map of action name to histogram
+     */
+    public static Map<String, LatencyHistogram> getActionHistograms() {
+        return new TreeMap<>(byAction);
+    }
+
+    /**
+     * Returns the histograms of the actions executed by a single test.
+     *
+     * @param testName the test name
+     * @return a sorted map of action name to histogram, empty if the test recorded nothing
+     */
+    public static Map<String, LatencyHistogram> getTestHistograms(String testName) {
+        Map<String, LatencyHistogram> histograms = byTest.get(testName);
+        return histograms == null ? new TreeMap<>() : new TreeMap<>(histograms);
+    }
+
+    /**
+     * Formats a histogram as a one-line summary.
+     *
+     * @param histogram the histogram to format
+     * @return the summary with count, p50, p90, p99 and max
+     */
+    public static String summarize(LatencyHistogram histogram) {
+        return String.format("n=%d | p50 %.0f ms | p90 %.0f ms | p99 %.0f ms | max %.0f ms", histogram.getCount(),
+                histogram.getPercentileMillis(50), histogram.getPercentileMillis(90),
+                histogram.getPercentileMillis(99), histogram.getMaxMillis());
+    }
+
+    /**
+     * Builds an HTML table of the given histograms for the Extent report.
+     *
+     * @param histograms the histograms keyed by action
+     * @return the HTML table
+     */
+    public static String toHtmlTable(Map<String, LatencyHistogram> histograms) {
+        StringBuilder html = new StringBuilder("<table class='table table-sm'><tr><th>Action</th><th>Count</th>"
+                + "<th>p50 (ms)</th><th>p90 (ms)</th><th>p99 (ms)</th><th>Max (ms)</th><th>Total (ms)</th></tr>");
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            html.append(String.format("<tr><td>%s</td><td>%d</td><td>%.0f</td><td>%.0f</td><td>%.0f</td>"
+                    + "<td>%.0f</td><td>%.0f</td></tr>", entry.getKey(), histogram.getCount(),
+                    histogram.getPercentileMillis(50), histogram.getPercentileMillis(90),
+                    histogram.getPercentileMillis(99), histogram.getMaxMillis(), histogram.getTotalMillis()));
+        }
+        return html.append("</table>").toString();
+    }
+
+    /**
+     * Writes every histogram (per action, per action and argument, per test) to a JSON file.
+     *
+     * @param filePath the path of the JSON file to write
+     */
+    public static void exportJson(String filePath) {
+        Map<String, Object> export = new LinkedHashMap<>();
+        export.put("actions", toJsonMap(byAction));
+        export.put("actionArguments", toJsonMap(byActionArgument));
+        Map<String, Object> tests = new TreeMap<>();
+        byTest.forEach((testName, histograms) -> tests.put(testName, toJsonMap(histograms)));
+        export.put("tests", tests);
+
+        ReportWriteEvent event = new ReportWriteEvent();
+        event.begin();
+        try (Writer writer = new FileWriter(filePath)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(export, writer);
+            System.out.println("Action timings exported to " + filePath);
+        } catch (IOException e) {
+            System.out.println("Unable to export action timings: " + e.getMessage());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = "exportActionTimings";
+            event.path = filePath;
+            event.commit();
+        }
+    }
+
+    private static Map<String, Object> toJsonMap(Map<String, LatencyHistogram> histograms) {
+        Map<String, Object> json = new TreeMap<>();
+        histograms.forEach((key, histogram) -> {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", histogram.getCount());
+            values.put("meanMs", histogram.getMeanMillis());
+            values.put("p50Ms", histogram.getPercentileMillis(50));
+            values.put("p90Ms", histogram.getPercentileMillis(90));
+            values.put("p99Ms", histogram.getPercentileMillis(99));
+            values.put("maxMs", histogram.getMaxMillis());
+            values.put("totalMs", histogram.getTotalMillis());
+            json.put(key, values);
+        });
+        return json;
+    }
+
+    /**
+     * A running action timing, recorded when closed. The timing is also emitted as a Flight
+     * Recorder event when a recording with SNAP events enabled is running.
+     */
+    public static final class Timing implements AutoCloseable {
+        private final String action;
+        private final String argument;
+        private final long startNanos;
+        private final ActionEvent event = new ActionEvent();
+
+        private Timing(String action, String argument) {
+            this.action = action;
+            this.argument = argument;
+            this.event.begin();
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            record(action, argument, System.nanoTime() - startNanos);
+            DeadlineBudget.exitStep();
+            event.end();
+            if (event.shouldCommit()) {
+                event.testName = currentTest.get();
+                event.action = action;
+                event.argument = argument;
+                event.commit();
+            }
+        }
+    }
+}
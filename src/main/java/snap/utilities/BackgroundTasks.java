@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Phaser;
+
+/**
+ * Runs framework side work, such as writing screenshot files, off the test thread. Tasks run on
+ * virtual threads in the virtual-thread mode and on daemon platform threads otherwise, with the
+ * submitting test's {@link ThreadContext} applied.
+ */
+public class BackgroundTasks {
+
+    private static final ExecutorService executor = VirtualThreads.newPerTaskExecutor("snap-background-");
+
+    // Registered parties are the tasks still running, plus the phaser itself
+    private static final Phaser pending = new Phaser(1);
+
+    /**
+     * Submits a task with the context of the current test. Failures are logged, not rethrown.
+     *
+     * @param description what the task does, used in the failure message
+     * @param task        the task to run
+     */
+    public static void submit(String description, Runnable task) {
+        Runnable contextual = ThreadContext.capture().wrap(task);
+        pending.register();
+        executor.execute(() -> {
+            try {
+                contextual.run();
+            } catch (RuntimeException e) {
+                System.out.println("Background task failed (" + description + "): " + e);
+            } finally {
+                pending.arriveAndDeregister();
+            }
+        });
+    }
+
+    /**
+     * Waits until every task submitted so far has finished. Call before flushing the report.
+     */
+    public static void awaitCompletion() {
+        pending.arriveAndAwaitAdvance();
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import com.appiancorp.ps.automatedtest.fixture.SitesFixture;
+import snap.constants.CommonConstants;
+
+/**
+ * Gives every Chrome session a clone of a warmed profile template instead of an empty profile.
+ * <p>
+ * The template is built once per run by a headless session that logs into the configured
+ * {@code url} with the {@code USERNAME} and {@code PASSWORD} test data. The bundles of the login
+ * page and of the signed-in site are then in its disk cache, and Chrome's first-run dialogs have
+ * been dismissed. The session's cookies are deleted before it quits, so the template is not signed
+ * in. Each session then gets its own user-data-dir copied from the template.
+ * <p>
+ * While building the template, one more session is started from a copy of it. The copy time is
+ * compared with what the warm cache saves on the login. If copying costs more than it saves, the
+ * template is dropped and sessions start with an empty profile.
+ * <p>
+ * The clone is a full copy, cache included. Chrome opens its cache files for writing, so files
+ * shared between sessions, such as hard links, would let one session write into the cache of all
+ * the others. The template is never written after it is built and its permissions are left alone.
+ */
+public class ChromeProfileManager {
+
+    // Arguments applied to the template build and to every session
+    private static final List<String> FIRST_RUN_ARGUMENTS = Arrays.asList("--no-first-run",
+            "--no-default-browser-check", "--disable-search-engine-choice-screen", "--disable-sync");
+
+    // Chrome's single-instance locks, which must not be shared between sessions
+    private static final Set<String> LOCK_FILES = new HashSet<>(
+            Arrays.asList("SingletonLock", "SingletonCookie", "SingletonSocket", "lockfile"));
+
+    // Checked for every Chrome session, so the setting is read once
+    private static final boolean ENABLED = Boolean.parseBoolean(
+            ConfigReader.getValue("chrome_profile_template", "false"));
+
+    private static final ThreadLocal<Path> sessionProfile = new ThreadLocal<>();
+    private static Path template;
+    private static boolean templateFailed;
+    private static boolean templateUnprofitable;
+
+    /**
+     * Returns whether sessions use clones of the warmed profile template. Enabled with
+     * {@code chrome_profile_template=true} in config.properties.
+     *
+     * @return true if the profile template is used
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Points the options at a fresh clone of the profile template, building the template first if
+     * this is the first session of the run. The clone belongs to the current thread until
+     * {@link #releaseProfile()} is called.
+     *
+     * @param options the options of the session about to be created
+     */
+    public static void applyTo(ChromeOptions options) {
+        try {
+            Path source = getTemplate();
+            if (source == null) {
+                return;
+            }
+            Path clone;
+            try (ActionTimer.Timing timing = ActionTimer.time("ChromeProfileManager.cloneProfile", null)) {
+                clone = cloneTemplate(source);
+            }
+            sessionProfile.set(clone);
+            options.addArguments("--user-data-dir=" + clone.toAbsolutePath());
+            options.addArguments(FIRST_RUN_ARGUMENTS);
+            options.setExperimentalOption("prefs", firstRunPreferences());
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Unable to use the Chrome profile template, starting with an empty profile: " + e);
+        }
+    }
+
+    /**
+     * Deletes the profile clone of the current thread. Call after the session has quit.
+     */
+    public static void releaseProfile() {
+        Path clone = sessionProfile.get();
+        sessionProfile.remove();
+        if (clone != null) {
+            deleteProfile(clone);
+        }
+    }
+
+    /**
+     * Returns the profile clone of the current thread without releasing it, for a session that
+     * may be quit by another thread.
+     *
+     * @return the clone, or null if the thread's session does not use one
+     */
+    static Path currentProfile() {
+        return sessionProfile.get();
+    }
+
+    /**
+     * Deletes a profile clone obtained from {@link #currentProfile()}. Does nothing if the clone
+     * has already been deleted.
+     *
+     * @param clone the clone to delete
+     */
+    static void deleteProfile(Path clone) {
+        if (Files.exists(clone)) {
+            deleteClone(clone);
+        }
+    }
+
+    /**
+     * Hands the profile clone of the current thread over to the caller, for a session that
+     * outlives the thread's test. The clone is no longer deleted by {@link #releaseProfile()} on
+     * this thread.
+     *
+     * @return the clone, or null if the thread's session does not use one
+     */
+    static Path detachProfile() {
+        Path clone = sessionProfile.get();
+        sessionProfile.remove();
+        return clone;
+    }
+
+    /**
+     * Makes a clone handed over with {@link #detachProfile()} the profile of the current thread,
+     * so it is deleted when the thread's session is released.
+     *
+     * @param clone the clone, or null if the session does not use one
+     */
+    static void adoptProfile(Path clone) {
+        if (clone != null) {
+            sessionProfile.set(clone);
+        }
+    }
+
+    /**
+     * Returns the template, building it first if needed.
+     *
+     * @return the template, or null if copying it costs sessions more than it saves
+     * @throws IOException if the template could not be built
+     */
+    private static synchronized Path getTemplate() throws IOException {
+        if (templateUnprofitable) {
+            return null;
+        }
+        if (templateFailed) {
+            throw new IOException("the template could not be built earlier in this run");
+        }
+        if (template == null) {
+            // Marked failed until the build completes, so a broken build is not retried per session
+            templateFailed = true;
+            Path root = Paths.get(CommonConstants.getChromeProfilesPath());
+            deleteQuietly(root);
+            Path built = root.resolve("template");
+            Files.createDirectories(built);
+
+            long coldMillis = warmUp(built);
+            ActionTimer.record("ChromeProfileManager.coldLogin", null, coldMillis * 1_000_000);
+            template = built;
+            templateFailed = false;
+
+            // Measure a session started from a copy once, so the decision rests on both costs
+            long copyStart = System.nanoTime();
+            Path probe = cloneTemplate(built);
+            long copyMillis = (System.nanoTime() - copyStart) / 1_000_000;
+            try {
+                long warmMillis = warmUp(probe);
+                ActionTimer.record("ChromeProfileManager.warmLogin", null, warmMillis * 1_000_000);
+                long savedMillis = coldMillis - warmMillis;
+                System.out.println("Chrome profile template built: login " + coldMillis + " ms with an empty profile, "
+                        + warmMillis + " ms with the template, profile copy " + copyMillis + " ms.");
+                if (copyMillis >= savedMillis) {
+                    templateUnprofitable = true;
+                    System.out.println("The profile copy costs more than the template saves (" + savedMillis
+                            + " ms); sessions start with an empty profile.");
+                } else {
+                    System.out.println("The template saves " + (savedMillis - copyMillis)
+                            + " ms per session after the copy.");
+                }
+            } finally {
+                deleteClone(probe);
+            }
+            if (templateUnprofitable) {
+                template = null;
+                deleteQuietly(root);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Logs into Appian with a headless session on the given profile, filling its cache with the
+     * bundles of the login page and the signed-in site, then deletes the session's cookies.
+     *
+     * @param userDataDir the profile
+     * @return the time from opening the site to the signed-in page, in milliseconds
+     */
+    private static long warmUp(Path userDataDir) {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless=new", "window-size=1920,1080", "--user-data-dir=" + userDataDir.toAbsolutePath());
+        options.addArguments(FIRST_RUN_ARGUMENTS);
+        options.setExperimentalOption("prefs", firstRunPreferences());
+        DriverBinaryResolver.resolveChromeDriver();
+        WebDriver driver = new ChromeDriver(options);
+        try {
+            SitesFixture fixture = new SitesFixture();
+            fixture.setTimeoutSecondsTo(Integer.parseInt(ConfigReader.getValue("appian_timeout")));
+            fixture.setAppianVersionTo(ConfigReader.getValue("appian_version"));
+            fixture.setAppianLocaleTo(ConfigReader.getValue("appian_locale"));
+            fixture.setWebDriver(driver);
+            long start = System.nanoTime();
+            fixture.loginIntoWithUsernameAndPassword(ConfigReader.getValue("url"), DataReader.getValue("USERNAME"),
+                    DataReader.getValue("PASSWORD"));
+            fixture.waitForProgressBar();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            driver.manage().deleteAllCookies();
+            return millis;
+        } finally {
+            driver.quit();
+        }
+    }
+
+    private static Map<String, Object> firstRunPreferences() {
+        Map<String, Object> preferences = new HashMap<>();
+        preferences.put("credentials_enable_service", false);
+        preferences.put("profile.password_manager_enabled", false);
+        preferences.put("browser.check_default_browser", false);
+        return preferences;
+    }
+
+    private static Path cloneTemplate(Path source) throws IOException {
+        Path clone = source.resolveSibling("session-" + UUID.randomUUID());
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(source)) {
+            paths = walk.collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Path target = clone.resolve(source.relativize(path).toString());
+            if (Files.isDirectory(path)) {
+                Files.createDirectories(target);
+            } else if (!LOCK_FILES.contains(path.getFileName().toString())) {
+                Files.copy(path, target);
+            }
+        }
+        return clone;
+    }
+
+    private static void deleteClone(Path clone) {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(clone)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        } catch (IOException e) {
+            System.out.println("Unable to delete Chrome profile " + clone + ": " + e.getMessage());
+            return;
+        }
+        for (Path path : paths) {
+            path.toFile().delete();
+        }
+    }
+
+    private static void deleteQuietly(Path root) {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(file -> {
+                file.setWritable(true);
+                file.delete();
+            });
+        } catch (IOException e) {
+            System.out.println("Unable to delete Chrome profile " + root + ": " + e.getMessage());
+        }
+    }
+}
@@ -22,7 +22,6 @@ import java.time.Duration;
 import java.util.*;
 import org.apache.commons.imaging.Imaging;
 import org.openqa.selenium.*;
-import org.openqa.selenium.io.FileHandler;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.testng.Assert;
@@ -30,8 +29,11 @@ import com.appiancorp.ps.automatedtest.fixture.SitesFixture;
 import com.aventstack.extentreports.Status;
 import snap.constants.CommonConstants;
 import snap.listeners.ReportListeners;
+import snap.reports.RunMetrics;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.function.Function;
 
 public class CommonMethods {
 
@@ -56,16 +58,22 @@ public class CommonMethods {
 	 * @param methodName the name of the method where the screenshot is captured
 	 */
 	public void capturePageScreenshot(String methodName) {
-		File source = ((TakesScreenshot) driver).getScreenshotAs(OutputType.FILE);
-		System.out.println("Screenshot captured");
-		File destination = new File(CommonConstants.getScreenshotFilePath() + "Screenshot_" + methodName + "_"
-				+ CommonConstants.getDateTimeStamp() + ".png");
-		try {
-			FileHandler.copy(source, destination);
-			System.out.println("Screenshot copied to " + CommonConstants.getScreenshotFilePath());
-		} catch (IOException e) {
-			System.out.println("Unable to copy screenshot file to '" + CommonConstants.getScreenshotFilePath()
-					+ "'. Error occured :" + e);
+		try (ActionTimer.Timing timing = ActionTimer.time("capturePageScreenshot", methodName)) {
+			byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+			System.out.println("Screenshot captured");
+			File destination = new File(CommonConstants.getScreenshotFilePath() + "Screenshot_" + methodName + "_"
+					+ CommonConstants.getDateTimeStamp() + ".png");
+			// The file is written off the test thread; the test only waits for the browser
+			BackgroundTasks.submit("write " + destination.getName(), () -> {
+				try {
+					Files.write(destination.toPath(), screenshot);
+					RunMetrics.screenshotWritten(screenshot.length);
+					System.out.println("Screenshot copied to " + CommonConstants.getScreenshotFilePath());
+				} catch (IOException e) {
+					System.out.println("Unable to copy screenshot file to '" + CommonConstants.getScreenshotFilePath()
+							+ "'. Error occured :" + e);
+				}
+			});
 		}
 	}
 
@@ -100,16 +108,20 @@ public class CommonMethods {
 	 */
 
 	/**
-	 * Clicks on a button identified by its text.
+	 * Clicks on a button identified by its text. Transient failures before the click and while
+	 * waiting for the result are retried separately, so the button is never clicked twice.
 	 *
 	 * @param strButton the button text
 	 */
 	public void clickOnButton(String strButton) {
-		try {
-			fixture.waitForProgressBar();
-			Assert.assertTrue(fixture.verifyButtonIsEnabled(strButton), "Button Enabled");
-			fixture.clickOnButton(strButton);
-			fixture.waitForProgressBar();
+		try (ActionTimer.Timing timing = ActionTimer.time("clickOnButton", strButton)) {
+			DomSnapshot.invalidate();
+			StepRetry.run("clickOnButton", strButton, () -> {
+				waitForProgressBar();
+				Assert.assertTrue(fixture.verifyButtonIsEnabled(strButton), "Button Enabled");
+				fixture.clickOnButton(strButton);
+			});
+			StepRetry.run("waitForProgressBar", strButton, this::waitForProgressBar);
 			ReportListeners.logStep("Clicked on Button: " + strButton);
 		} catch (Exception e) {
 			ReportListeners.logStep(Status.FAIL, "An error occurred while clicking on the button '" + strButton + "' : " + e);
@@ -123,7 +135,8 @@ public class CommonMethods {
 	 * @param strCardLink the card link text
 	 */
 	public void clickOnCard(String strCardLink) {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("clickOnCard", strCardLink)) {
+			DomSnapshot.invalidate();
 			fixture.clickOnCard(strCardLink);
 			ReportListeners.logStep("Clicked on Card: " + strCardLink);
 		} catch (Exception e) {
@@ -138,7 +151,8 @@ public class CommonMethods {
 	 * @param strSitePageName the site page text
 	 */
 	public void clickOnSitePage(String strSitePageName) {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("clickOnSitePage", strSitePageName)) {
+			DomSnapshot.invalidate();
 			fixture.clickOnSitePage(strSitePageName);
 			ReportListeners.logStep("Clicked on Site Page: " + strSitePageName);
 		} catch (Exception e) {
@@ -147,7 +161,8 @@ public class CommonMethods {
 		}
 	}
 	public void EnterSearchText(String SearchTextArea) {
-		try{
+		try (ActionTimer.Timing timing = ActionTimer.time("EnterSearchText", null)) {
+			DomSnapshot.invalidate();
 			fixture.searchFor(SearchTextArea);
 			ReportListeners.logStep("Entered Search Text: " + SearchTextArea);
 		}catch(Exception e){
@@ -157,14 +172,16 @@ public class CommonMethods {
 	}
 
 	/**
-	 * Populates a field identified by its name with a given value.
+	 * Populates a field identified by its name with a given value, retrying transient failures.
 	 *
 	 * @param fieldName the name of the field
 	 * @param value the value to populate
 	 */
 	public void populateFieldNameWithValue(String fieldName, String value) {
-		try {
-			fixture.populateFieldWithValue(fieldName, value);
+		try (ActionTimer.Timing timing = ActionTimer.time("populateFieldNameWithValue", fieldName)) {
+			DomSnapshot.invalidate();
+			StepRetry.run("populateFieldNameWithValue", fieldName,
+					() -> fixture.populateFieldWithValue(fieldName, value));
 			ReportListeners.logStep("Populated '" + fieldName + "' with '" + value + "'");
 		} catch (Exception e) {
 			ReportListeners.logStep("An error occurred while populating '" + fieldName + "' field: " + e);
@@ -180,7 +197,8 @@ public class CommonMethods {
 	 * @param value the value to populate
 	 */
 	public void populateFieldIndexWithValue(Integer index, String fieldName, String value) {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("populateFieldIndexWithValue", fieldName)) {
+			DomSnapshot.invalidate();
 			fixture.populateFieldWithValue("[" + index + "]", value);
 			ReportListeners.logStep("Populated *" + fieldName + "' with '" + value + "'");
 		} catch (Exception e) {
@@ -195,22 +213,28 @@ public class CommonMethods {
 	 * @param linkText the link text
 	 */
 	public void clickOnLinkText(String linkText) {
-		fixture.clickOnLink(linkText);
-		fixture.waitForProgressBar();
-		ReportListeners.logStep("Clicked on Link Text: " + linkText);
+		try (ActionTimer.Timing timing = ActionTimer.time("clickOnLinkText", linkText)) {
+			DomSnapshot.invalidate();
+			fixture.clickOnLink(linkText);
+			waitForProgressBar();
+			ReportListeners.logStep("Clicked on Link Text: " + linkText);
+		}
 	}
 
 	/**
-	 * Clicks on a text element.
+	 * Clicks on a text element, retrying transient failures.
 	 *
 	 * @param strText the text to click on
 	 */
 	public void clickOnText(String strText) {
-		try {
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+		try (ActionTimer.Timing timing = ActionTimer.time("clickOnText", strText)) {
+			DomSnapshot.invalidate();
 			String xpath = String.format("//*[text()='%s']", strText);
-			WebElement element = wait.until(ExpectedConditions.elementToBeClickable(By.xpath(xpath)));
-			element.click();
+			StepRetry.run("clickOnText", strText, () -> {
+				WebDriverWait wait = new WebDriverWait(driver, DeadlineBudget.bound(Duration.ofSeconds(10)));
+				WebElement element = wait.until(ExpectedConditions.elementToBeClickable(By.xpath(xpath)));
+				element.click();
+			});
 			ReportListeners.logStep("Clicked on Text: " + strText);
 		} catch (Exception e) {
 			ReportListeners.logStep("Clicked on Text *" + strText + "*: " + e);
@@ -224,8 +248,9 @@ public class CommonMethods {
 	 * @param strLinkText the partial link text
 	 */
 	public void clickOnPartialLinkText(String strLinkText) {
-		try {
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+		try (ActionTimer.Timing timing = ActionTimer.time("clickOnPartialLinkText", strLinkText)) {
+			DomSnapshot.invalidate();
+			WebDriverWait wait = new WebDriverWait(driver, DeadlineBudget.bound(Duration.ofSeconds(10)));
 			String xpath = String.format("//a[contains(text(),'%s')]", strLinkText);
 			WebElement element = wait.until(ExpectedConditions.elementToBeClickable(By.xpath(xpath)));
 			element.click();
@@ -242,8 +267,9 @@ public class CommonMethods {
 	 * @param strText the partial text to click on
 	 */
 	public void clickOnPartialText(String strText) {
-		try {
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+		try (ActionTimer.Timing timing = ActionTimer.time("clickOnPartialText", strText)) {
+			DomSnapshot.invalidate();
+			WebDriverWait wait = new WebDriverWait(driver, DeadlineBudget.bound(Duration.ofSeconds(10)));
 			String xpath = String.format("//*[contains(text(),'%s')]", strText);
 			WebElement element = wait.until(ExpectedConditions.elementToBeClickable(By.xpath(xpath)));
 			element.click();
@@ -260,9 +286,10 @@ public class CommonMethods {
 	 * @param strCheckboxOption the checkbox option text
 	 */
 	public void clickOnCheckboxOption(String strCheckboxOption) {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("clickOnCheckboxOption", strCheckboxOption)) {
+			DomSnapshot.invalidate();
 			fixture.clickOnCheckboxOption(strCheckboxOption);
-			fixture.waitForProgressBar();
+			waitForProgressBar();
 			ReportListeners.logStep("Clicked on Checkbox: " + strCheckboxOption);
 		} catch (Exception e) {
 			ReportListeners
@@ -278,8 +305,11 @@ public class CommonMethods {
 	 * @param value the value to populate
 	 */
 	public void populateFieldValueWithPlaceholder(String placeholder, String value) {
-		String[] inputValue = { value };
-		fixture.populateFieldWithPlaceholderWith(placeholder, inputValue);
+		try (ActionTimer.Timing timing = ActionTimer.time("populateFieldValueWithPlaceholder", placeholder)) {
+			DomSnapshot.invalidate();
+			String[] inputValue = { value };
+			fixture.populateFieldWithPlaceholderWith(placeholder, inputValue);
+		}
 	}
 
 	/**
@@ -289,25 +319,32 @@ public class CommonMethods {
 	 * @param value the value to populate
 	 */
 	public void populateFilterWithValue(String fieldName, String value) {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("populateFilterWithValue", fieldName)) {
+			DomSnapshot.invalidate();
 			fixture.populateRecordTypeUserFilterWith(fieldName, value);
-			fixture.waitForProgressBar();
+			waitForProgressBar();
 				ReportListeners.logStep("Populated filter '" + fieldName + "' with '" + value + "'");
-			} catch (Exception e) {
+			} catch (DeadlineBudget.ExhaustedException e) {
+			throw e;
+		} catch (Exception e) {
 			ReportListeners.logStep("An error occurred while populating '" + fieldName + "' filter: " + e);
 		}
 	}
 
 	/**
-	 * Fetches the value from a field identified by its name.
+	 * Fetches the value from a field identified by its name. In snapshot mode the value of a
+	 * labelled field is read from the shared page snapshot.
 	 *
 	 * @param fieldName the field name
 	 * @return the field value
 	 */
 	public String getFieldNameValue(String fieldName) {
 		String value = null;
-		try {
-			value = fixture.getFieldValue(fieldName);
+		try (ActionTimer.Timing timing = ActionTimer.time("getFieldNameValue", fieldName)) {
+			value = DomSnapshot.isEnabled() ? fromSnapshot(snapshot -> snapshot.getFieldValue(fieldName), null) : null;
+			if (value == null) {
+				value = fixture.getFieldValue(fieldName);
+			}
 			ReportListeners.logStep("Fetched *" + fieldName + "* value: " + value);
 		} catch (Exception e) {
 			ReportListeners.logStep("Failed to get value for field *" + fieldName + "*: " + e);
@@ -325,7 +362,7 @@ public class CommonMethods {
 	 */
 	public String getFieldIndexValue(Integer index, String fieldName) {
 		String value = null;
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("getFieldIndexValue", fieldName)) {
 			value = fixture.getFieldValue("[" + index + "]");
 			ReportListeners.logStep("Fetched *" + fieldName + "* value: " + value);
 		} catch (Exception e) {
@@ -335,54 +372,115 @@ public class CommonMethods {
 		return value;
 	}
 
+	/**
+	 * Waits for the Appian progress bar to disappear.
+	 */
+	public void waitForProgressBar() {
+		try (ActionTimer.Timing timing = ActionTimer.time("waitForProgressBar", null)) {
+			fixture.waitForProgressBar();
+		}
+	}
+
 	/* 
 	 * Group 4: Verification Methods 
 	 * Methods for verifying the presence of text or elements on the page.
 	 */
 
 	/**
-	 * Verifies if a text is present on the page.
+	 * Verifies if a text is present on the page. In snapshot mode, text already shown is found in
+	 * the shared page snapshot without a round trip of its own.
 	 *
 	 * @param text the text to verify
 	 * @return true if the text is present, false otherwise
 	 */
 	public Boolean verifyTextIsPresent(String text) {
-		boolean result = false;
-		ReportListeners.logScreenshotStep(driver, "verification screenshot '"+text+"' is present or not!");
-		result = fixture.verifyTextIsPresent(text);
-		return result;
+		// The text is free-form, so it is left out of the timing key
+		try (ActionTimer.Timing timing = ActionTimer.time("verifyTextIsPresent", null)) {
+			boolean result = false;
+			ReportListeners.logScreenshotStep(driver, "verification screenshot '"+text+"' is present or not!");
+			// Text already on the page is found in the shared snapshot; otherwise the fixture waits for it
+			if (DomSnapshot.isEnabled() && fromSnapshot(snapshot -> snapshot.hasText(text), false)) {
+				return true;
+			}
+			result = fixture.verifyTextIsPresent(text);
+			return result;
+		}
+	}
+
+	/**
+	 * Starts a batch of expectations about the current page, checked together by
+	 * {@link SoftVerifier#assertAll()} with one snapshot per attempt and one screenshot.
+	 *
+	 * @return a new verifier for the current page
+	 */
+	public SoftVerifier verify() {
+		return new SoftVerifier(driver);
 	}
 
 	/**
-	 * Verifies if a text is present on the page using a specified locator type.
+	 * Verifies if a text is present on the page using a specified locator type, checking the
+	 * shared page snapshot first in snapshot mode.
 	 *
 	 * @param text the text to verify
 	 * @param type the locator type
 	 * @return true if the text is present, false otherwise
 	 */
 	public Boolean verifyTextIsPresent(String text, String type) {
-		boolean result = false;
-		ReportListeners.logScreenshotStep(driver, "verification screenshot '"+text+"' is present or not!");
-		result = driver.findElement(By.xpath("//a//*[text()='"+text+"']")).isDisplayed();
-		return result;
+		try (ActionTimer.Timing timing = ActionTimer.time("verifyTextIsPresent", null)) {
+			boolean result = false;
+			ReportListeners.logScreenshotStep(driver, "verification screenshot '"+text+"' is present or not!");
+			By locator = By.xpath("//a//*[text()='"+text+"']");
+			if (DomSnapshot.isEnabled() && DomSnapshot.supports(locator) && isDisplayedInSnapshot(locator)) {
+				return true;
+			}
+			result = driver.findElement(locator).isDisplayed();
+			return result;
+		}
 	}
 
 	/**
-	 * Verifies if an element is displayed on the page.
+	 * Verifies if an element is displayed on the page. In snapshot mode an element displayed in the
+	 * shared page snapshot answers at once; otherwise the live page is checked, since the snapshot
+	 * may be stale and does not see into frames or shadow roots.
 	 *
 	 * @param locator the By locator of the element
 	 * @return true if the element is displayed, false otherwise
 	 */
 	public boolean isElementDisplayed(By locator) {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("isElementDisplayed", locator.toString())) {
+			if (DomSnapshot.isEnabled() && DomSnapshot.supports(locator) && isDisplayedInSnapshot(locator)) {
+				return true;
+			}
 			WebElement element = driver.findElement(locator);
 			return element.isDisplayed();
+		} catch (DeadlineBudget.ExhaustedException e) {
+			// An expired test must stop, not read as a missing element
+			throw e;
 		} catch (Exception e) {
 			System.out.println("No element present");
 			return false;
 		}
 	}
 
+	private boolean isDisplayedInSnapshot(By locator) {
+		return fromSnapshot(snapshot -> snapshot.isDisplayed(locator), false);
+	}
+
+	/**
+	 * Answers a question from the shared page snapshot, or returns the fallback when the snapshot
+	 * cannot answer it so that the fixture or the live page decides instead.
+	 */
+	private <T> T fromSnapshot(Function<DomSnapshot, T> query, T fallback) {
+		try {
+			return query.apply(DomSnapshot.current(driver));
+		} catch (DeadlineBudget.ExhaustedException e) {
+			throw e;
+		} catch (RuntimeException e) {
+			// For example an XPath the JDK cannot evaluate, or a page the snapshot script failed on
+			return fallback;
+		}
+	}
+
 	/* 
 	 * Group 5: Window and Frame Handling Methods 
 	 * Methods for handling browser windows, frames, and alerts.
@@ -394,8 +492,10 @@ public class CommonMethods {
 	 * @return the set of window handles
 	 */
 	public Set<String> getTotalWindows() {
-		Set<String> allWindows = driver.getWindowHandles();
-		return allWindows;
+		try (ActionTimer.Timing timing = ActionTimer.time("getTotalWindows", null)) {
+			Set<String> allWindows = driver.getWindowHandles();
+			return allWindows;
+		}
 	}
 
 	/**
@@ -404,24 +504,29 @@ public class CommonMethods {
 	 * @return the current window handle
 	 */
 	public String getCurrentWindow() {
-		return driver.getWindowHandle();
+		try (ActionTimer.Timing timing = ActionTimer.time("getCurrentWindow", null)) {
+			return driver.getWindowHandle();
+		}
 	}
 
 	/**
 	 * Switches to the child window.
 	 */
 	public void switchToChildWindow() {
-		String mainWindowHandle = driver.getWindowHandle();
-		Set<String> allWindowHandles = driver.getWindowHandles();
-		Iterator<String> windowIterator = allWindowHandles.iterator();
-		while (windowIterator.hasNext()) {
-			String child_window = windowIterator.next();
-			if (!mainWindowHandle.equals(child_window)) {
-				driver.switchTo().window(child_window);
-				System.out.println(driver.switchTo().window(child_window).getTitle());
+		try (ActionTimer.Timing timing = ActionTimer.time("switchToChildWindow", null)) {
+			DomSnapshot.invalidate();
+			String mainWindowHandle = driver.getWindowHandle();
+			Set<String> allWindowHandles = driver.getWindowHandles();
+			Iterator<String> windowIterator = allWindowHandles.iterator();
+			while (windowIterator.hasNext()) {
+				String child_window = windowIterator.next();
+				if (!mainWindowHandle.equals(child_window)) {
+					driver.switchTo().window(child_window);
+					System.out.println(driver.switchTo().window(child_window).getTitle());
+				}
 			}
+			waitForProgressBar();
 		}
-		fixture.waitForProgressBar();
 	}
 
 	/**
@@ -430,7 +535,10 @@ public class CommonMethods {
 	 * @param windowName the name of the main window
 	 */
 	public void switchToMainWindow(String windowName) {
-		driver.switchTo().window(windowName);
+		try (ActionTimer.Timing timing = ActionTimer.time("switchToMainWindow", null)) {
+			DomSnapshot.invalidate();
+			driver.switchTo().window(windowName);
+		}
 	}
 
 	/**
@@ -439,14 +547,20 @@ public class CommonMethods {
 	 * @param idOrName the ID or name of the frame
 	 */
 	public void switchToFrameWithIdOrName(String idOrName) {
-		driver.switchTo().frame(idOrName);
+		try (ActionTimer.Timing timing = ActionTimer.time("switchToFrameWithIdOrName", idOrName)) {
+			DomSnapshot.invalidate();
+			driver.switchTo().frame(idOrName);
+		}
 	}
 
 	/**
 	 * Switches back to the default content from a frame.
 	 */
 	public void switchToDefault() {
-		driver.switchTo().defaultContent();
+		try (ActionTimer.Timing timing = ActionTimer.time("switchToDefault", null)) {
+			DomSnapshot.invalidate();
+			driver.switchTo().defaultContent();
+		}
 	}
 
 	/**
@@ -455,7 +569,7 @@ public class CommonMethods {
 	 * @return true if an alert is present, false otherwise
 	 */
 	public boolean isAlertPresent() {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("isAlertPresent", null)) {
 			System.out.println("Alert is present.");
 			return (driver.switchTo().alert() != null);
 		} catch (NoAlertPresentException e) {
@@ -470,7 +584,7 @@ public class CommonMethods {
 	 * @return the Alert object, or null if no alert is present
 	 */
 	public Alert getAlert() {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("getAlert", null)) {
 			System.out.println("Switching to alert.");
 			return driver.switchTo().alert();
 		} catch (NoAlertPresentException e) {
@@ -485,7 +599,7 @@ public class CommonMethods {
 	 * @return the alert text, or an empty string if no alert is present
 	 */
 	public String getAlertText() {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("getAlertText", null)) {
 			String alertText = driver.switchTo().alert().getText();
 			ReportListeners.logStep("Text on the Alert popup is : " + alertText);
 			System.out.println("Text on the Alert popup is : " + alertText);
@@ -501,7 +615,8 @@ public class CommonMethods {
 	 * Accepts the alert popup.
 	 */
 	public void acceptAlert() {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("acceptAlert", null)) {
+			DomSnapshot.invalidate();
 			driver.switchTo().alert().accept();
 			System.out.println("Alert accepted.");
 		} catch (NoAlertPresentException e) {
@@ -521,7 +636,7 @@ public class CommonMethods {
 	 * @return the BufferedImage object, or null if an error occurs
 	 */
 	public BufferedImage readImageWithApacheCommons(String path) {
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("readImageWithApacheCommons", null)) {
 			File file = new File(path);
 			return Imaging.getBufferedImage(file);
 		} catch (Exception e) {
@@ -538,18 +653,20 @@ public class CommonMethods {
 	 * @return true if the images are identical, false otherwise
 	 */
 	public boolean compareImages(BufferedImage img1, BufferedImage img2) {
-		if (img1.getWidth() != img2.getWidth() || img1.getHeight() != img2.getHeight()) {
-			return false;
-		}
+		try (ActionTimer.Timing timing = ActionTimer.time("compareImages", null)) {
+			if (img1.getWidth() != img2.getWidth() || img1.getHeight() != img2.getHeight()) {
+				return false;
+			}
 
-		for (int y = 0; y < img1.getHeight(); y++) {
-			for (int x = 0; x < img1.getWidth(); x++) {
-				if (img1.getRGB(x, y) != img2.getRGB(x, y)) {
-					return false;
+			for (int y = 0; y < img1.getHeight(); y++) {
+				for (int x = 0; x < img1.getWidth(); x++) {
+					if (img1.getRGB(x, y) != img2.getRGB(x, y)) {
+						return false;
+					}
 				}
 			}
+			return true;
 		}
-		return true;
 	}
 
 	/* 
@@ -558,16 +675,26 @@ public class CommonMethods {
 	 */
 
 	/**
-	 * Logs out the user and quits the WebDriver.
+	 * Logs out the user and quits the WebDriver, unless the session is parked for the rerun of a
+	 * failed test.
 	 */
 	public void afterTest() {
-		try {
-			logout();
-			ReportListeners.logStep("Logout Successful");
-		} catch (Exception e) {
-			System.out.println("Logout failed: " + e);
+		// Clean-up must run to the end even when the test used up its deadline budget
+		DeadlineBudget.endTest();
+		try (ActionTimer.Timing timing = ActionTimer.time("afterTest", null)) {
+			// A failed test keeps its logged-in session for the rerun pass
+			if (ParkedSessions.parkIfRequested()) {
+				ReportListeners.logStep("Session kept open for the rerun of this test");
+				return;
+			}
+			try {
+				logout();
+				ReportListeners.logStep("Logout Successful");
+			} catch (Exception e) {
+				System.out.println("Logout failed: " + e);
+			}
+			WebDriverMgr.quitWebDriver();
 		}
-		WebDriverMgr.getDriver().quit();
 	}
 
 	/**
@@ -575,12 +702,13 @@ public class CommonMethods {
 	 */
 	public void logout() {
 		System.out.println("Starting Log out process");
-		try {
+		try (ActionTimer.Timing timing = ActionTimer.time("logout", null)) {
+			DomSnapshot.invalidate();
 			driver.navigate().refresh();
 			if (isAlertPresent()) {
 				acceptAlert();
 			}
-			fixture.waitForProgressBar();
+			waitForProgressBar();
 			fixture.logout();
 		} catch (Exception e) {
 			System.out.println("Error while logging out: " + e);
@@ -54,4 +54,17 @@ public class ConfigReader {
         
         return property.getProperty(key);
     }
+
+    /**
+     * Retrieves the value associated with a given key from the config.properties file,
+     * falling back to a default when the key is missing or blank.
+     *
+     * @param key          the key to look up in the properties file
+     * @param defaultValue the value to return if the key is not configured
+     * @return the configured value, or the default value
+     */
+    public static String getValue(String key, String defaultValue) {
+        String value = getValue(key);
+        return (value == null || value.trim().isEmpty()) ? defaultValue : value.trim();
+    }
 }
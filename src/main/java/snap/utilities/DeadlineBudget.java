@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import com.appiancorp.ps.automatedtest.fixture.SitesFixture;
+import org.testng.SkipException;
+
+/**
+ * Hierarchical deadlines for the suite, each test and each step.
+ * <p>
+ * The suite budget ({@code suite_budget_minutes}) starts with the suite, the test budget
+ * ({@code test_budget_seconds}) with each test, and the step budget ({@code step_budget_seconds})
+ * with each outermost timed action of a test. Waits take the smaller of their own timeout and the
+ * time left in all three budgets, via {@link #bound(Duration)}, and the Appian fixture timeout is
+ * lowered the same way at the start of every step. When a budget runs out the step fails with an
+ * {@link ExhaustedException} naming the steps that used the time, and tests that have not started
+ * yet are skipped once the suite budget is gone. A budget of 0 is unlimited.
+ */
+public class DeadlineBudget {
+
+    private static final long SUITE_BUDGET_MILLIS = TimeUnit.MINUTES.toMillis(
+            Long.parseLong(ConfigReader.getValue("suite_budget_minutes", "0")));
+    private static final long TEST_BUDGET_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.parseLong(ConfigReader.getValue("test_budget_seconds", "0")));
+    private static final long STEP_BUDGET_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.parseLong(ConfigReader.getValue("step_budget_seconds", "0")));
+    private static final int APPIAN_TIMEOUT_SECONDS = Integer.parseInt(ConfigReader.getValue("appian_timeout", "60"));
+
+    // Number of steps named in the report of an exhausted budget
+    private static final int REPORTED_STEPS = 5;
+
+    private static volatile long suiteDeadline = Long.MAX_VALUE;
+    private static final ThreadLocal<TestBudget> currentTest = new ThreadLocal<>();
+    private static final ThreadLocal<Step> currentStep = new ThreadLocal<>();
+
+    /**
+     * Starts the suite budget. Call once when the suite starts.
+     */
+    public static void startSuite() {
+        suiteDeadline = SUITE_BUDGET_MILLIS > 0 ? System.currentTimeMillis() + SUITE_BUDGET_MILLIS : Long.MAX_VALUE;
+    }
+
+    /**
+     * Skips the calling test when the suite budget is already spent, before it starts a browser.
+     *
+     * @throws SkipException if the suite budget is exhausted
+     */
+    public static void checkSuite() {
+        if (System.currentTimeMillis() >= suiteDeadline) {
+            throw new SkipException("Suite budget of " + TimeUnit.MILLISECONDS.toMinutes(SUITE_BUDGET_MILLIS)
+                    + " min exhausted before the test started");
+        }
+    }
+
+    /**
+     * Starts the budget of a test on the current thread.
+     *
+     * @param testName the test name
+     */
+    public static void startTest(String testName) {
+        long now = System.currentTimeMillis();
+        currentTest.set(new TestBudget(testName, TEST_BUDGET_MILLIS > 0 ? now + TEST_BUDGET_MILLIS : Long.MAX_VALUE));
+        currentStep.remove();
+    }
+
+    /**
+     * Ends the budget of the current thread's test. Clean-up after this point, such as logging out
+     * and quitting the browser, is not bounded. Calling it when no test is running does nothing.
+     */
+    public static void endTest() {
+        currentTest.remove();
+        currentStep.remove();
+    }
+
+    /**
+     * Returns the budget of the current thread's test, so work handed to another thread can carry
+     * it over with {@link #restoreTest(TestBudget)}.
+     *
+     * @return the test budget, or null if no test is running
+     */
+    public static TestBudget currentTest() {
+        return currentTest.get();
+    }
+
+    /**
+     * Makes a captured test budget the budget of the current thread.
+     *
+     * @param budget the captured budget, or null to clear it
+     */
+    public static void restoreTest(TestBudget budget) {
+        if (budget == null) {
+            endTest();
+        } else {
+            currentTest.set(budget);
+        }
+    }
+
+    /**
+     * Enters a timed action. The outermost action of a test starts the step budget; every action
+     * fails fast if a budget is already exhausted and lowers the Appian fixture timeout to the time
+     * left. Outside a test this does nothing.
+     *
+     * @param action   the action name
+     * @param argument the identifying argument, or null
+     * @throws ExhaustedException if the suite, test or step budget is exhausted
+     */
+    static void enterStep(String action, String argument) {
+        TestBudget test = currentTest.get();
+        if (test == null) {
+            return;
+        }
+        Step step = currentStep.get();
+        if (step == null) {
+            long now = System.currentTimeMillis();
+            step = new Step(argument == null ? action : action + " [" + argument + "]", now,
+                    STEP_BUDGET_MILLIS > 0 ? now + STEP_BUDGET_MILLIS : Long.MAX_VALUE);
+            currentStep.set(step);
+        }
+        step.depth++;
+        if (remainingMillis() <= 0) {
+            // Leave the step so the failure is booked against it like any other step
+            exitStep();
+            throw new ExhaustedException(describeExhaustion(test, step));
+        }
+        SitesFixture fixture = WebDriverMgr.getFixture();
+        if (fixture != null) {
+            long seconds = bound(Duration.ofSeconds(APPIAN_TIMEOUT_SECONDS)).getSeconds();
+            fixture.setTimeoutSecondsTo((int) Math.max(1, seconds));
+        }
+    }
+
+    /**
+     * Leaves a timed action entered with {@link #enterStep(String, String)}. Leaving the outermost
+     * action books its duration against the test.
+     */
+    static void exitStep() {
+        Step step = currentStep.get();
+        if (step == null || --step.depth > 0) {
+            return;
+        }
+        currentStep.remove();
+        TestBudget test = currentTest.get();
+        if (test != null) {
+            test.spentByStep.merge(step.name, System.currentTimeMillis() - step.started, Long::sum);
+        }
+    }
+
+    /**
+     * Bounds a timeout by the time left in the suite, test and step budgets.
+     *
+     * @param timeout the timeout the caller would use on its own
+     * @return the smaller of the timeout and the remaining budget, never negative
+     */
+    public static Duration bound(Duration timeout) {
+        long remaining = remainingMillis();
+        return remaining >= timeout.toMillis() ? timeout : Duration.ofMillis(Math.max(0, remaining));
+    }
+
+    /**
+     * Returns the time left before the nearest deadline of the suite, the current test and the
+     * current step.
+     *
+     * @return the remaining milliseconds, Long.MAX_VALUE if no budget applies
+     */
+    public static long remainingMillis() {
+        long deadline = suiteDeadline;
+        TestBudget test = currentTest.get();
+        if (test != null) {
+            deadline = Math.min(deadline, test.deadline);
+            Step step = currentStep.get();
+            if (step != null) {
+                deadline = Math.min(deadline, step.deadline);
+            }
+        }
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.currentTimeMillis();
+    }
+
+    private static String describeExhaustion(TestBudget test, Step step) {
+        long now = System.currentTimeMillis();
+        String budget;
+        if (now >= suiteDeadline) {
+            budget = "Suite budget of " + TimeUnit.MILLISECONDS.toMinutes(SUITE_BUDGET_MILLIS) + " min";
+        } else if (now >= test.deadline) {
+            budget = "Test budget of " + TimeUnit.MILLISECONDS.toSeconds(TEST_BUDGET_MILLIS) + " s";
+        } else {
+            budget = "Step budget of " + TimeUnit.MILLISECONDS.toSeconds(STEP_BUDGET_MILLIS) + " s";
+        }
+        List<Map.Entry<String, Long>> steps = new ArrayList<>(test.spentByStep.entrySet());
+        steps.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+        String spentBy = steps.stream().limit(REPORTED_STEPS)
+                .map(entry -> entry.getKey() + " " + entry.getValue() + " ms").collect(Collectors.joining(", "));
+        return budget + " exhausted in '" + test.name + "' at step " + step.name
+                + (spentBy.isEmpty() ? "" : "; time spent by: " + spentBy);
+    }
+
+    /**
+     * The budget of one test, shared by every thread working for the test.
+     */
+    public static final class TestBudget {
+        private final String name;
+        private final long deadline;
+        private final Map<String, Long> spentByStep = new ConcurrentHashMap<>();
+
+        private TestBudget(String name, long deadline) {
+            this.name = name;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class Step {
+        private final String name;
+        private final long started;
+        private final long deadline;
+        private int depth;
+
+        private Step(String name, long started, long deadline) {
+            this.name = name;
+            this.started = started;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Thrown when a step starts after the suite, test or step budget has run out.
+     */
+    public static class ExhaustedException extends RuntimeException {
+        public ExhaustedException(String message) {
+            super(message);
+        }
+    }
+}
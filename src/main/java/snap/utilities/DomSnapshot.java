@@ -0,0 +1,463 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * A copy of the rendered page, taken with a single script call, that answers read-only checks
+ * without further browser round trips.
+ * <p>
+ * The script serializes the document body, leaving out subtrees that are not rendered, scripts and
+ * styles. Each element keeps its attributes (form fields also their current value), its text, its
+ * visibility and its bounding box. The copy is rebuilt as a W3C DOM in the JVM, so XPath, the
+ * common CSS selectors and text lookups are evaluated locally.
+ * <p>
+ * {@link #current(WebDriver)} shares one snapshot per thread between consecutive checks. Actions
+ * that change the page call {@link #invalidate()}, and a snapshot older than
+ * {@code dom_snapshot_max_age_ms} is retaken, because Appian also updates the page on its own.
+ * Snapshots are used by the verification helpers when {@code dom_snapshot=true}.
+ */
+public final class DomSnapshot {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(ConfigReader.getValue("dom_snapshot", "false"));
+    private static final long MAX_AGE_MILLIS = Long.parseLong(ConfigReader.getValue("dom_snapshot_max_age_ms", "1000"));
+
+    private static final String VISIBLE = "snap.visible";
+    private static final String RECT = "snap.rect";
+
+    // Each element becomes [tag, {attributes}, visible, [x, y, width, height], child, child, ...]
+    private static final String SERIALIZE_SCRIPT = ""
+            + "const skip = {SCRIPT: 1, STYLE: 1, NOSCRIPT: 1, TEMPLATE: 1, svg: 1};"
+            + "function rendered(el) {"
+            + "  if (el.checkVisibility) { return el.checkVisibility(); }"
+            + "  return getComputedStyle(el).display !== 'none';"
+            + "}"
+            + "function visible(el, rect) {"
+            + "  if (rect.width === 0 && rect.height === 0) { return 0; }"
+            + "  const style = getComputedStyle(el);"
+            + "  return style.visibility !== 'hidden' && style.opacity !== '0' ? 1 : 0;"
+            + "}"
+            + "function walk(el) {"
+            + "  const attrs = {};"
+            + "  for (const attr of el.attributes) { attrs[attr.name] = attr.value; }"
+            + "  if (el.tagName === 'INPUT' || el.tagName === 'TEXTAREA' || el.tagName === 'SELECT') {"
+            + "    attrs.value = String(el.value);"
+            + "  }"
+            + "  const rect = el.getBoundingClientRect();"
+            + "  const node = [el.tagName.toLowerCase(), attrs, visible(el, rect),"
+            + "    [Math.round(rect.x), Math.round(rect.y), Math.round(rect.width), Math.round(rect.height)]];"
+            + "  for (const child of el.childNodes) {"
+            + "    if (child.nodeType === 3) {"
+            + "      if (child.nodeValue.trim()) { node.push(child.nodeValue); }"
+            + "    } else if (child.nodeType === 1 && !skip[child.tagName] && rendered(child)) {"
+            + "      node.push(walk(child));"
+            + "    }"
+            + "  }"
+            + "  return node;"
+            + "}"
+            + "return JSON.stringify(walk(document.body));";
+
+    // Selenium's By.toString() is "By.<strategy>: <value>"
+    private static final Pattern BY_PATTERN = Pattern.compile("By\\.(\\w+): (.*)", Pattern.DOTALL);
+
+    // A CSS compound selector and its id, class and attribute parts
+    private static final String CSS_ATTRIBUTE = "\\[([\\w-]+)(?:([~^$*]?=)(?:\"([^\"]*)\"|'([^']*)'|([\\w-]+)))?\\]";
+    private static final Pattern CSS_COMPOUND = Pattern.compile(
+            "([A-Za-z][\\w-]*|\\*)?((?:#[\\w-]+|\\.[\\w-]+|" + CSS_ATTRIBUTE + ")*)");
+    private static final Pattern CSS_PART = Pattern.compile("#([\\w-]+)|\\.([\\w-]+)|" + CSS_ATTRIBUTE);
+
+    private static final ThreadLocal<DomSnapshot> current = new ThreadLocal<>();
+
+    private final WebDriver driver;
+    private final Document document;
+    private final boolean scripted;
+    private final long takenAt = System.currentTimeMillis();
+    private final XPath xpath = XPathFactory.newInstance().newXPath();
+    private String variable;
+
+    private DomSnapshot(WebDriver driver, Document document, boolean scripted) {
+        this.driver = driver;
+        this.document = document;
+        this.scripted = scripted;
+        // Locator values are passed as $value, so they never need quoting inside the expression
+        this.xpath.setXPathVariableResolver(name -> variable);
+    }
+
+    /**
+     * Returns whether verifications use snapshots. Enabled with {@code dom_snapshot=true} in
+     * config.properties.
+     *
+     * @return true if snapshot mode is on
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Takes a new snapshot of the page shown by the driver.
+     *
+     * @param driver the WebDriver showing the page
+     * @return the snapshot
+     */
+    public static DomSnapshot capture(WebDriver driver) {
+        try (ActionTimer.Timing timing = ActionTimer.time("DomSnapshot.capture", null)) {
+            return parse(driver, (String) ((JavascriptExecutor) driver).executeScript(SERIALIZE_SCRIPT));
+        }
+    }
+
+    /**
+     * Builds a snapshot from the serialized page.
+     *
+     * @param driver the WebDriver showing the page
+     * @param json   the page as serialized by the snapshot script, or null if the driver has no
+     *               script engine
+     * @return the snapshot
+     */
+    static DomSnapshot parse(WebDriver driver, String json) {
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            if (json == null) {
+                // Drivers without a script engine, such as the dry-run driver, give an empty scripted snapshot
+                document.appendChild(document.createElement("body"));
+                return new DomSnapshot(driver, document, true);
+            }
+            document.appendChild(toElement(document, JsonParser.parseString(json).getAsJsonArray()));
+            return new DomSnapshot(driver, document, false);
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException("Unable to create a DOM for the page snapshot", e);
+        }
+    }
+
+    /**
+     * Returns the snapshot shared by the checks of the current thread, taking a new one if there
+     * is none yet, it belongs to another driver, it was invalidated or it is too old.
+     *
+     * @param driver the WebDriver showing the page
+     * @return the snapshot
+     */
+    public static DomSnapshot current(WebDriver driver) {
+        DomSnapshot snapshot = current.get();
+        if (snapshot == null || snapshot.driver != driver
+                || System.currentTimeMillis() - snapshot.takenAt > MAX_AGE_MILLIS) {
+            snapshot = capture(driver);
+            current.set(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Discards the shared snapshot of the current thread. Call before any action that changes
+     * the page.
+     */
+    public static void invalidate() {
+        current.remove();
+    }
+
+    /**
+     * Returns whether the snapshot stands in for a page the driver cannot serialize, such as the
+     * pages of the dry-run driver. A scripted snapshot is empty, so its checks must not be taken as
+     * a statement about the page: callers treat them as met or ask the driver instead.
+     *
+     * @return true if the snapshot has no page content
+     */
+    public boolean isScripted() {
+        return scripted;
+    }
+
+    /**
+     * Returns whether a visible element contains the text.
+     *
+     * @param text the text to look for
+     * @return true if the text appears in a visible element
+     */
+    public boolean hasText(String text) {
+        return containsText(document.getDocumentElement(), text);
+    }
+
+    /**
+     * Returns whether the first element matched by the locator is visible, like
+     * {@code driver.findElement(locator).isDisplayed()}.
+     *
+     * @param locator the locator
+     * @return true if the element exists and is visible
+     * @throws IllegalArgumentException if the locator cannot be evaluated locally
+     */
+    public boolean isDisplayed(By locator) {
+        List<Element> elements = findAll(locator);
+        return !elements.isEmpty() && isVisible(elements.get(0));
+    }
+
+    /**
+     * Returns every element matched by the locator, in document order.
+     *
+     * @param locator the locator; XPath, id, name, class name, tag name, link text and the common
+     *                CSS selectors are supported
+     * @return the matched elements
+     * @throws IllegalArgumentException if the locator cannot be evaluated locally
+     */
+    public List<Element> findAll(By locator) {
+        String expression = toXPath(locator);
+        if (expression == null) {
+            throw new IllegalArgumentException("Locator not supported by the page snapshot: " + locator);
+        }
+        return evaluate(expression, locatorValue(locator));
+    }
+
+    /**
+     * Returns whether the locator can be evaluated against a snapshot.
+     *
+     * @param locator the locator
+     * @return true if {@link #findAll(By)} supports it
+     */
+    public static boolean supports(By locator) {
+        return toXPath(locator) != null;
+    }
+
+    /**
+     * Returns the current value of the form field labelled with the given text.
+     *
+     * @param label the field label
+     * @return the value, or null if no labelled field is found in the snapshot
+     */
+    public String getFieldValue(String label) {
+        for (Element labelElement : evaluate("//label[normalize-space(.)=$value]", label)) {
+            String target = labelElement.getAttribute("for");
+            if (!target.isEmpty()) {
+                List<Element> fields = evaluate("//*[@id=$value]", target);
+                if (!fields.isEmpty() && fields.get(0).hasAttribute("value")) {
+                    return fields.get(0).getAttribute("value");
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the text of an element and its descendants, like {@code WebElement.getText()} for
+     * visible elements.
+     *
+     * @param element an element of this snapshot
+     * @return the text content
+     */
+    public static String getText(Element element) {
+        return element.getTextContent().trim();
+    }
+
+    /**
+     * Returns whether an element of a snapshot was visible when the snapshot was taken.
+     *
+     * @param element an element of a snapshot
+     * @return true if the element was visible
+     */
+    public static boolean isVisible(Element element) {
+        return Boolean.TRUE.equals(element.getUserData(VISIBLE));
+    }
+
+    /**
+     * Returns the bounding box of an element of a snapshot.
+     *
+     * @param element an element of a snapshot
+     * @return x, y, width and height in CSS pixels
+     */
+    public static int[] getRect(Element element) {
+        return (int[]) element.getUserData(RECT);
+    }
+
+    /**
+     * Returns the number of elements in the snapshot.
+     *
+     * @return the element count
+     */
+    public int size() {
+        return document.getElementsByTagName("*").getLength();
+    }
+
+    private List<Element> evaluate(String expression, String value) {
+        try {
+            variable = value;
+            NodeList nodes = (NodeList) xpath.evaluate(expression, document, XPathConstants.NODESET);
+            List<Element> elements = new ArrayList<>(nodes.getLength());
+            for (int i = 0; i < nodes.getLength(); i++) {
+                if (nodes.item(i) instanceof Element) {
+                    elements.add((Element) nodes.item(i));
+                }
+            }
+            return elements;
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("Invalid XPath for the page snapshot: " + expression, e);
+        }
+    }
+
+    private static boolean containsText(Element element, String text) {
+        boolean visible = isVisible(element);
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.TEXT_NODE) {
+                if (visible && child.getNodeValue().contains(text)) {
+                    return true;
+                }
+            } else if (child instanceof Element && containsText((Element) child, text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Element toElement(Document document, JsonArray node) {
+        Element element = document.createElement(node.get(0).getAsString());
+        for (Map.Entry<String, JsonElement> attribute : node.get(1).getAsJsonObject().entrySet()) {
+            try {
+                element.setAttribute(attribute.getKey(), attribute.getValue().getAsString());
+            } catch (DOMException e) {
+                // Attribute names such as framework bindings are valid HTML but not valid XML
+            }
+        }
+        element.setUserData(VISIBLE, node.get(2).getAsInt() == 1, null);
+        JsonArray rect = node.get(3).getAsJsonArray();
+        element.setUserData(RECT, new int[] {rect.get(0).getAsInt(), rect.get(1).getAsInt(),
+                rect.get(2).getAsInt(), rect.get(3).getAsInt()}, null);
+        for (int i = 4; i < node.size(); i++) {
+            JsonElement child = node.get(i);
+            element.appendChild(child.isJsonArray() ? toElement(document, child.getAsJsonArray())
+                    : document.createTextNode(child.getAsString()));
+        }
+        return element;
+    }
+
+    private static String locatorValue(By locator) {
+        Matcher matcher = BY_PATTERN.matcher(locator.toString());
+        return matcher.matches() ? matcher.group(2) : null;
+    }
+
+    private static String toXPath(By locator) {
+        Matcher matcher = BY_PATTERN.matcher(locator.toString());
+        if (!matcher.matches()) {
+            return null;
+        }
+        switch (matcher.group(1)) {
+            case "xpath":
+                return matcher.group(2);
+            case "id":
+                return "//*[@id=$value]";
+            case "name":
+                return "//*[@name=$value]";
+            case "className":
+                return "//*[contains(concat(' ', normalize-space(@class), ' '), concat(' ', $value, ' '))]";
+            case "tagName":
+                return matcher.group(2).matches("[A-Za-z][\\w-]*") ? "//" + matcher.group(2).toLowerCase() : null;
+            case "linkText":
+                return "//a[normalize-space(.)=$value]";
+            case "partialLinkText":
+                return "//a[contains(., $value)]";
+            case "cssSelector":
+                return cssToXPath(matcher.group(2));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Translates the common CSS selectors (type, id, class and attribute selectors joined by
+     * descendant or child combinators) to XPath.
+     *
+     * @param css the selector
+     * @return the XPath expression, or null if the selector uses anything else
+     */
+    static String cssToXPath(String css) {
+        StringBuilder xpath = new StringBuilder();
+        String axis = "//";
+        for (String token : css.trim().replaceAll("\\s*>\\s*", " > ").split("\\s+")) {
+            if (token.equals(">")) {
+                if (axis.equals("/") || xpath.length() == 0) {
+                    return null;
+                }
+                axis = "/";
+                continue;
+            }
+            Matcher compound = CSS_COMPOUND.matcher(token);
+            if (token.isEmpty() || !compound.matches()) {
+                return null;
+            }
+            xpath.append(axis).append(compound.group(1) == null ? "*" : compound.group(1).toLowerCase());
+            Matcher part = CSS_PART.matcher(compound.group(2));
+            while (part.find()) {
+                if (part.group(1) != null) {
+                    xpath.append("[@id=").append(quote(part.group(1))).append(']');
+                } else if (part.group(2) != null) {
+                    xpath.append("[contains(concat(' ', normalize-space(@class), ' '), ")
+                            .append(quote(" " + part.group(2) + " ")).append(")]");
+                } else if (part.group(4) == null) {
+                    xpath.append("[@").append(part.group(3)).append(']');
+                } else {
+                    String value = part.group(5) != null ? part.group(5)
+                            : part.group(6) != null ? part.group(6) : part.group(7);
+                    xpath.append('[').append(attributeTest(part.group(3), part.group(4), value)).append(']');
+                }
+            }
+            axis = "//";
+        }
+        return axis.equals("/") ? null : xpath.toString();
+    }
+
+    private static String attributeTest(String name, String operator, String value) {
+        String attribute = "@" + name;
+        switch (operator) {
+            case "=":
+                return attribute + "=" + quote(value);
+            case "~=":
+                return "contains(concat(' ', normalize-space(" + attribute + "), ' '), "
+                        + quote(" " + value + " ") + ")";
+            case "^=":
+                return "starts-with(" + attribute + ", " + quote(value) + ")";
+            case "$=":
+                return "substring(" + attribute + ", string-length(" + attribute + ") - " + (value.length() - 1)
+                        + ")=" + quote(value);
+            default:
+                return "contains(" + attribute + ", " + quote(value) + ")";
+        }
+    }
+
+    private static String quote(String value) {
+        if (!value.contains("'")) {
+            return "'" + value + "'";
+        }
+        if (!value.contains("\"")) {
+            return "\"" + value + "\"";
+        }
+        return "concat('" + value.replace("'", "', \"'\", '") + "')";
+    }
+}
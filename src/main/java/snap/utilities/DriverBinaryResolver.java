@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import io.github.bonigarcia.wdm.WebDriverManager;
+import snap.constants.CommonConstants;
+
+/**
+ * Resolves the ChromeDriver binary once per run and hands the same path to every session.
+ * <p>
+ * The installed Chrome version is read locally (registry on Windows, {@code --version} elsewhere)
+ * and used as the cache key. A cached driver is reused when its SHA-256 checksum still matches;
+ * otherwise the driver is taken from {@code chromedriver_path} or, unless
+ * {@code driver_resolution_offline=true}, downloaded once through WebDriverManager. The driver is
+ * then copied into the cache and recorded with its checksum. When the Chrome version cannot be
+ * read, the driver is used without caching, since there is no key that would still match after
+ * Chrome updates. Sessions only read the resolved path from {@code webdriver.chrome.driver}, so
+ * they never look anything up over the network. A failed resolution is not retried within the run.
+ */
+public class DriverBinaryResolver {
+
+    private static final Pattern VERSION = Pattern.compile("(\\d+)\\.\\d+\\.\\d+\\.\\d+");
+    private static final String INDEX_FILE = "index.properties";
+
+    private static String resolvedPath;
+    private static boolean attempted;
+
+    /**
+     * Resolves the ChromeDriver binary for the installed Chrome, at most once per run, and sets
+     * {@code webdriver.chrome.driver} to it.
+     *
+     * @return the driver path, or null if it could not be resolved
+     */
+    public static synchronized String resolveChromeDriver() {
+        // Every session calls in; a failure is reported once and sessions fall back to Selenium Manager
+        if (attempted) {
+            return resolvedPath;
+        }
+        attempted = true;
+        try (ActionTimer.Timing timing = ActionTimer.time("DriverBinaryResolver.resolveChromeDriver", null)) {
+            String browserVersion = detectChromeVersion();
+            Path driver;
+            if (browserVersion == null) {
+                driver = locateDriver(null);
+            } else {
+                String key = "chrome-" + majorVersion(browserVersion);
+                Path cacheDirectory = Paths.get(CommonConstants.getDriverCachePath());
+                Properties index = loadIndex(cacheDirectory);
+                driver = verifiedCacheEntry(index, key);
+                if (driver == null) {
+                    driver = cacheDriver(cacheDirectory, index, key, locateDriver(browserVersion));
+                }
+            }
+            resolvedPath = driver.toAbsolutePath().toString();
+            System.setProperty("webdriver.chrome.driver", resolvedPath);
+            System.out.println("ChromeDriver for Chrome " + browserVersion + " resolved to " + resolvedPath);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Unable to resolve ChromeDriver from the local cache: " + e.getMessage());
+        }
+        return resolvedPath;
+    }
+
+    private static Path verifiedCacheEntry(Properties index, String key) throws IOException {
+        String path = index.getProperty(key + ".path");
+        String checksum = index.getProperty(key + ".sha256");
+        if (path == null || checksum == null) {
+            return null;
+        }
+        Path driver = Paths.get(path);
+        if (!Files.isRegularFile(driver)) {
+            System.out.println("Cached ChromeDriver " + driver + " is missing; resolving again.");
+            return null;
+        }
+        if (!checksum.equals(sha256(driver))) {
+            System.out.println("Cached ChromeDriver " + driver + " failed its checksum; resolving again.");
+            return null;
+        }
+        return driver;
+    }
+
+    private static Path locateDriver(String browserVersion) {
+        String configured = ConfigReader.getValue("chromedriver_path", "");
+        if (!configured.isEmpty()) {
+            return Paths.get(configured);
+        }
+        if (Boolean.parseBoolean(ConfigReader.getValue("driver_resolution_offline", "false"))) {
+            throw new IllegalStateException((browserVersion == null ? "the Chrome version could not be read"
+                    : "no cached driver for Chrome " + browserVersion)
+                    + " and chromedriver_path is not set (offline resolution)");
+        }
+        WebDriverManager manager = WebDriverManager.chromedriver();
+        if (browserVersion != null) {
+            manager.browserVersion(majorVersion(browserVersion));
+        }
+        manager.setup();
+        return Paths.get(manager.getDownloadedDriverPath());
+    }
+
+    private static Path cacheDriver(Path cacheDirectory, Properties index, String key, Path source) throws IOException {
+        Path target = cacheDirectory.resolve(key).resolve(source.getFileName().toString());
+        Files.createDirectories(target.getParent());
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        target.toFile().setExecutable(true);
+
+        index.setProperty(key + ".path", target.toAbsolutePath().toString());
+        index.setProperty(key + ".sha256", sha256(target));
+        try (OutputStream out = Files.newOutputStream(cacheDirectory.resolve(INDEX_FILE))) {
+            index.store(out, "Resolved driver binaries keyed by browser version");
+        }
+        return target;
+    }
+
+    private static Properties loadIndex(Path cacheDirectory) throws IOException {
+        Properties index = new Properties();
+        Path file = cacheDirectory.resolve(INDEX_FILE);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                index.load(in);
+            }
+        }
+        return index;
+    }
+
+    private static String detectChromeVersion() {
+        List<List<String>> commands = new ArrayList<>();
+        if (System.getProperty("os.name").toLowerCase().contains("win")) {
+            // chrome.exe does not print its version on Windows, so read it from the registry
+            commands.add(Arrays.asList("reg", "query", "HKEY_CURRENT_USER\\Software\\Google\\Chrome\\BLBeacon",
+                    "/v", "version"));
+            commands.add(Arrays.asList("reg", "query",
+                    "HKEY_LOCAL_MACHINE\\SOFTWARE\\WOW6432Node\\Microsoft\\Windows\\CurrentVersion\\Uninstall\\Google Chrome",
+                    "/v", "version"));
+        } else {
+            String browserPath = ConfigReader.getValue("local_browser_path", "");
+            if (!browserPath.isEmpty()) {
+                commands.add(Arrays.asList(browserPath, "--version"));
+            }
+            commands.add(Arrays.asList("google-chrome", "--version"));
+            commands.add(Arrays.asList("chromium", "--version"));
+            commands.add(Arrays.asList("/Applications/Google Chrome.app/Contents/MacOS/Google Chrome", "--version"));
+        }
+        for (List<String> command : commands) {
+            try {
+                Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+                String output;
+                try (InputStream in = process.getInputStream()) {
+                    output = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                process.waitFor(10, TimeUnit.SECONDS);
+                Matcher matcher = VERSION.matcher(output);
+                if (matcher.find()) {
+                    return matcher.group();
+                }
+            } catch (IOException e) {
+                // Not installed at this location; try the next one
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return null;
+    }
+
+    private static String majorVersion(String browserVersion) {
+        return browserVersion.substring(0, browserVersion.indexOf('.'));
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = Files.newInputStream(file)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
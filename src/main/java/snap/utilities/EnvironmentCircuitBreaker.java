@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+import org.testng.SkipException;
+import com.appiancorp.ps.automatedtest.exception.GenericTestException;
+import com.appiancorp.ps.automatedtest.exception.TimeoutStopTestException;
+import com.appiancorp.ps.automatedtest.exception.TimeoutTestException;
+import com.appiancorp.ps.automatedtest.exception.UnreachableBrowserTestException;
+import snap.dryrun.DryRun;
+
+/**
+ * Stops the run from waiting out timeouts against an Appian environment that is down.
+ * <p>
+ * The breaker starts closed and probes the site once when the suite starts. Every
+ * infrastructure failure (a login timeout, a 5xx response, a refused connection) is counted, and
+ * after {@code circuit_breaker_threshold} consecutive failures the breaker opens: tests are then
+ * skipped before a browser is started, with the cause of the last failure as the reason. Once
+ * {@code circuit_breaker_cooldown_seconds} have passed, the next test triggers a half-open probe of
+ * the site; if it answers, the breaker closes and tests run again, otherwise it stays open for
+ * another cooldown.
+ */
+public class EnvironmentCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final boolean ENABLED = Boolean.parseBoolean(ConfigReader.getValue("circuit_breaker", "false"))
+            && !DryRun.isEnabled();
+    private static final int THRESHOLD = Integer.parseInt(ConfigReader.getValue("circuit_breaker_threshold", "3"));
+    private static final long COOLDOWN_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.parseLong(ConfigReader.getValue("circuit_breaker_cooldown_seconds", "60")));
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(
+            Long.parseLong(ConfigReader.getValue("circuit_breaker_probe_timeout_seconds", "10")));
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(PROBE_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL).build();
+
+    private static State state = State.CLOSED;
+    private static int consecutiveFailures;
+    private static long openedAt;
+    private static String lastCause;
+    private static int trips;
+
+    /**
+     * Returns whether the circuit breaker is active.
+     *
+     * @return true if {@code circuit_breaker=true} and the run is not a dry run
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Probes the site before the first test. A failed probe opens the breaker straight away, so
+     * no test waits on an environment that is already known to be down.
+     */
+    public static synchronized void probeAtStart() {
+        if (!ENABLED) {
+            return;
+        }
+        String failure = probe();
+        if (failure == null) {
+            System.out.println("Appian environment probe succeeded.");
+        } else {
+            open("start-up probe failed: " + failure);
+        }
+    }
+
+    /**
+     * Skips the calling test when the breaker is open. When the cooldown has passed, the site is
+     * probed first and the test runs if the probe succeeds.
+     *
+     * @throws SkipException if the environment is considered unhealthy
+     */
+    public static synchronized void checkClosed() {
+        if (!ENABLED || state == State.CLOSED) {
+            return;
+        }
+        if (System.currentTimeMillis() - openedAt >= COOLDOWN_MILLIS) {
+            state = State.HALF_OPEN;
+            System.out.println("Circuit breaker half-open, probing the Appian environment.");
+            String failure = probe();
+            if (failure == null) {
+                close();
+                return;
+            }
+            open("half-open probe failed: " + failure);
+        }
+        throw new SkipException("Appian environment unhealthy, circuit breaker open: " + lastCause);
+    }
+
+    /**
+     * Records an action that reached the environment successfully, which resets the failure
+     * count.
+     */
+    public static synchronized void recordSuccess() {
+        if (!ENABLED) {
+            return;
+        }
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            close();
+        }
+    }
+
+    /**
+     * Records a failed action. Only infrastructure failures count towards the threshold; a
+     * failure of the application itself leaves the breaker untouched. The Appian fixture reports
+     * some connection failures as a {@code GenericTestException} whose message only holds the call
+     * arguments, so such a failure counts when a fresh probe of the site fails as well.
+     *
+     * @param action  the action that failed, for example "performAppianLogin"
+     * @param failure the exception thrown by the action
+     * @return true if the failure was classified as an infrastructure failure
+     */
+    public static boolean recordFailure(String action, Throwable failure) {
+        if (!ENABLED) {
+            return false;
+        }
+        String cause = action + " failed: " + String.valueOf(failure.getMessage()).split("\n")[0];
+        if (!isInfrastructureFailure(failure)) {
+            // Probed outside the lock, so other tests are not held up by the probe timeout
+            String probeFailure = isGenericFixtureFailure(failure) ? probe() : null;
+            if (probeFailure == null) {
+                return false;
+            }
+            cause += " (" + probeFailure + ")";
+        }
+        count(cause);
+        return true;
+    }
+
+    private static synchronized void count(String cause) {
+        consecutiveFailures++;
+        lastCause = cause;
+        System.out.println("Infrastructure failure " + consecutiveFailures + "/" + THRESHOLD + ": " + lastCause);
+        if (state == State.CLOSED && consecutiveFailures >= THRESHOLD) {
+            open(consecutiveFailures + " consecutive infrastructure failures, last: " + lastCause);
+        }
+    }
+
+    /**
+     * Returns the current state of the breaker.
+     *
+     * @return the breaker state
+     */
+    public static synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns a summary of the breaker for the report.
+     *
+     * @return the number of times the breaker opened and, if it is open, the cause
+     */
+    public static synchronized String describe() {
+        if (trips == 0) {
+            return "Never opened";
+        }
+        return "Opened " + trips + " time(s), now " + state + (state == State.CLOSED ? "" : ": " + lastCause);
+    }
+
+    /**
+     * Classifies a failure as an infrastructure failure: a timeout, an unreachable browser, a
+     * refused or unresolvable connection, or a 5xx response reported by the browser or the Appian
+     * fixture. The fixture replaces Selenium's exceptions with cause-less types of its own, which
+     * are classified by type.
+     *
+     * @param failure the exception to classify
+     * @return true if the failure points at the environment rather than the application
+     */
+    public static boolean isInfrastructureFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException || cause instanceof java.util.concurrent.TimeoutException
+                    || cause instanceof ConnectException || cause instanceof HttpTimeoutException
+                    || cause instanceof UnreachableBrowserException) {
+                return true;
+            }
+            // The fixture's stop-on-error timeout does not extend its plain timeout type
+            if (cause instanceof TimeoutTestException || cause instanceof TimeoutStopTestException
+                    || cause instanceof UnreachableBrowserTestException) {
+                return true;
+            }
+            String message = String.valueOf(cause.getMessage());
+            if (message.contains("ERR_CONNECTION") || message.contains("ERR_NAME_NOT_RESOLVED")
+                    || message.contains("ERR_TIMED_OUT") || message.contains("ERR_ADDRESS_UNREACHABLE")
+                    || message.matches("(?s).*\\b(500|502|503|504) (Internal Server Error|Bad Gateway|"
+                            + "Service Unavailable|Gateway Timeout).*")
+                    || message.toLowerCase().contains("timed out")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isGenericFixtureFailure(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof GenericTestException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Requests the configured site URL. Any answer below 500 counts as healthy, because the
+     * login page and redirects prove the server is serving requests.
+     *
+     * @return null if the site answered, otherwise a description of the failure
+     */
+    private static String probe() {
+        String url = ConfigReader.getValue("url");
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(PROBE_TIMEOUT).GET().build();
+            int status = HTTP.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 500 ? "HTTP " + status + " from " + url : null;
+        } catch (IOException e) {
+            return e.getClass().getSimpleName() + " while requesting " + url
+                    + (e.getMessage() != null ? ": " + e.getMessage() : "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted while requesting " + url;
+        }
+    }
+
+    private static void open(String cause) {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        lastCause = cause;
+        trips++;
+        System.out.println("Circuit breaker opened, remaining tests are skipped until the environment recovers: "
+                + cause);
+    }
+
+    private static void close() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        System.out.println("Circuit breaker closed, the Appian environment is healthy again.");
+    }
+}
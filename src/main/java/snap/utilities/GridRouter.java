@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.Augmenter;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+/**
+ * Creates {@link RemoteWebDriver} sessions across the Selenium nodes listed in {@code grid_nodes}.
+ * <p>
+ * Each new session goes to the node with the best score: the moving average of its session-start
+ * latency, weighted by the sessions it is already starting and divided by the free slots its
+ * {@code /status} endpoint reports for the requested browser. A node that cannot be reached or has
+ * no capacity left is rested for {@code grid_node_cooldown_seconds} and the next best node is tried.
+ * Any other failure, such as capabilities no node supports, is thrown at once, since every node
+ * would refuse the session the same way. When no node has a free slot the router waits, up to
+ * {@code grid_session_wait_seconds}.
+ */
+public class GridRouter {
+
+    // Weight of the newest latency sample in the moving average
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    // Read once; isEnabled is checked for every session and a node rests after every refusal
+    private static final String GRID_NODES = ConfigReader.getValue("grid_nodes", "");
+    private static final long SESSION_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.parseLong(ConfigReader.getValue("grid_session_wait_seconds", "120")));
+    private static final long COOLDOWN_MILLIS = TimeUnit.SECONDS.toMillis(
+            Long.parseLong(ConfigReader.getValue("grid_node_cooldown_seconds", "30")));
+
+    private static final HttpClient HTTP = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private static List<Node> nodes;
+
+    /**
+     * Returns whether sessions are created on remote Selenium nodes.
+     *
+     * @return true if {@code grid_nodes} is configured
+     */
+    public static boolean isEnabled() {
+        return !GRID_NODES.isEmpty();
+    }
+
+    /**
+     * Creates a remote session on the best available node, retrying on other nodes when one is
+     * unreachable or full.
+     *
+     * @param capabilities the capabilities of the session, for example ChromeOptions
+     * @return the new session, augmented so DevTools is available when the node supports it
+     */
+    public static WebDriver createSession(Capabilities capabilities) {
+        long deadline = System.currentTimeMillis() + SESSION_WAIT_MILLIS;
+        WebDriverException lastFailure = null;
+        while (true) {
+            List<Node> candidates = rankNodes(capabilities.getBrowserName());
+            for (Node node : candidates) {
+                try {
+                    return startSession(node, capabilities);
+                } catch (WebDriverException e) {
+                    if (!isRefusal(e)) {
+                        throw e;
+                    }
+                    lastFailure = e;
+                    node.rest();
+                    System.out.println("Grid node " + node.url + " refused the session, trying another node: "
+                            + String.valueOf(e.getMessage()).split("\n")[0]);
+                }
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw lastFailure != null ? lastFailure
+                        : new WebDriverException("No grid node had a free " + capabilities.getBrowserName()
+                                + " slot within " + TimeUnit.MILLISECONDS.toSeconds(SESSION_WAIT_MILLIS) + " s");
+            }
+            try {
+                Thread.sleep(1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException("Interrupted while waiting for a grid slot", e);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a failed session start is down to the node, either unreachable or out of
+     * capacity, rather than to the session request itself.
+     *
+     * @param failure the failure of the session start
+     * @return true if another node may accept the same request
+     */
+    static boolean isRefusal(WebDriverException failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof UnreachableBrowserException || cause instanceof IOException
+                    || cause instanceof UncheckedIOException) {
+                return true;
+            }
+            String message = String.valueOf(cause.getMessage()).toLowerCase();
+            if (message.contains("timed out") || message.contains("rejected") || message.contains("no slot")
+                    || message.contains("no available") || message.contains("capacity")
+                    || message.contains("503 service unavailable") || message.contains("too many")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static WebDriver startSession(Node node, Capabilities capabilities) {
+        node.starting.incrementAndGet();
+        long start = System.nanoTime();
+        try (ActionTimer.Timing timing = ActionTimer.time("GridRouter.startSession", node.url.toString())) {
+            WebDriver driver = new Augmenter().augment(new RemoteWebDriver(node.url, capabilities));
+            node.recordLatency((System.nanoTime() - start) / 1_000_000);
+            System.out.println("Session started on grid node " + node.url);
+            return driver;
+        } finally {
+            node.starting.decrementAndGet();
+        }
+    }
+
+    private static List<Node> rankNodes(String browserName) {
+        long now = System.currentTimeMillis();
+        Map<Node, Integer> free = new HashMap<>();
+        for (Node node : getNodes()) {
+            if (node.restingUntil > now) {
+                continue;
+            }
+            int slots = freeSlots(node, browserName) - node.starting.get();
+            if (slots > 0) {
+                free.put(node, slots);
+            }
+        }
+        List<Node> ranked = new ArrayList<>(free.keySet());
+        ranked.sort(Comparator.comparingDouble(node -> node.score(free.get(node))));
+        return ranked;
+    }
+
+    private static int freeSlots(Node node, String browserName) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(node.url + "/status"))
+                    .timeout(Duration.ofSeconds(2)).GET().build();
+            JsonObject value = JsonParser.parseString(HTTP.send(request, HttpResponse.BodyHandlers.ofString()).body())
+                    .getAsJsonObject().getAsJsonObject("value");
+            if (!value.get("ready").getAsBoolean() || !value.has("nodes")) {
+                return 0;
+            }
+            int free = 0;
+            for (JsonElement gridNode : value.getAsJsonArray("nodes")) {
+                JsonObject nodeStatus = gridNode.getAsJsonObject();
+                if (nodeStatus.has("availability") && !"UP".equals(nodeStatus.get("availability").getAsString())) {
+                    continue;
+                }
+                for (JsonElement slot : nodeStatus.getAsJsonArray("slots")) {
+                    JsonObject slotStatus = slot.getAsJsonObject();
+                    String slotBrowser = slotStatus.getAsJsonObject("stereotype").get("browserName").getAsString();
+                    boolean idle = !slotStatus.has("session") || slotStatus.get("session").isJsonNull();
+                    boolean matches = browserName == null || browserName.isEmpty()
+                            || slotBrowser.equalsIgnoreCase(browserName);
+                    if (idle && matches) {
+                        free++;
+                    }
+                }
+            }
+            return free;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            System.out.println("Grid node " + node.url + " status unavailable: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    private static synchronized List<Node> getNodes() {
+        if (nodes == null) {
+            nodes = Arrays.stream(GRID_NODES.split(","))
+                    .map(String::trim).filter(url -> !url.isEmpty()).map(Node::new).collect(Collectors.toList());
+        }
+        return nodes;
+    }
+
+    private static final class Node {
+        private final URL url;
+        private final AtomicInteger starting = new AtomicInteger();
+        private volatile double averageLatencyMillis;
+        private volatile long restingUntil;
+
+        private Node(String url) {
+            try {
+                this.url = new URL(url.endsWith("/") ? url.substring(0, url.length() - 1) : url);
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Invalid grid node URL: " + url, e);
+            }
+        }
+
+        // Lower is better; nodes without latency samples score 0 so they are tried early
+        private double score(int freeSlots) {
+            return averageLatencyMillis * (1 + starting.get()) / freeSlots;
+        }
+
+        private synchronized void recordLatency(long millis) {
+            averageLatencyMillis = averageLatencyMillis == 0 ? millis
+                    : LATENCY_SMOOTHING * millis + (1 - LATENCY_SMOOTHING) * averageLatencyMillis;
+        }
+
+        private void rest() {
+            restingUntil = System.currentTimeMillis() + COOLDOWN_MILLIS;
+        }
+    }
+}
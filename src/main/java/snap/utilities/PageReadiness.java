@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.time.Duration;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+/**
+ * Readiness contract of a page object. With the eager or none page-load strategy, navigation
+ * returns before every subresource has loaded, so a page object states when it is usable instead.
+ */
+public interface PageReadiness {
+
+    /**
+     * Returns whether the page can be used now. Must not wait; missing or stale elements may
+     * simply throw and are treated as not ready.
+     *
+     * @return true if the page is ready for interaction
+     */
+    boolean isReady();
+
+    /**
+     * Waits until the page is ready, up to the configured {@code appian_timeout} or the time left
+     * in the deadline budget, whichever is shorter.
+     *
+     * @param driver the WebDriver showing the page
+     * @param page   the page object to wait for
+     * @return true if the page became ready, false if the timeout expired
+     */
+    static boolean awaitReady(WebDriver driver, PageReadiness page) {
+        try (ActionTimer.Timing timing = ActionTimer.time("awaitReady", page.getClass().getSimpleName())) {
+            Duration timeout = Duration.ofSeconds(Long.parseLong(ConfigReader.getValue("appian_timeout", "60")));
+            new WebDriverWait(driver, DeadlineBudget.bound(timeout))
+                    .pollingEvery(Duration.ofMillis(100))
+                    .ignoring(NoSuchElementException.class)
+                    .ignoring(StaleElementReferenceException.class)
+                    .ignoring(ElementNotInteractableException.class)
+                    .until(ignored -> page.isReady());
+            return true;
+        } catch (TimeoutException e) {
+            System.out.println(page.getClass().getSimpleName() + " was not ready in time: " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openqa.selenium.WebDriver;
+import snap.network.AssetPolicy;
+import snap.network.NetworkArchive;
+import snap.reports.RunMetrics;
+
+/**
+ * Keeps the still-authenticated sessions of failed tests open so their rerun can continue in them
+ * instead of starting a browser and logging in again.
+ * <p>
+ * A test thread asks for its session to be parked with {@link #requestParking(String)}; the
+ * clean-up of the test then parks it through {@link #parkIfRequested()} instead of logging out and
+ * quitting. At most {@code rerun_parked_sessions} sessions are parked, any others are quit as
+ * usual. Sessions left over after the rerun pass are quit by {@link #quitAll()}.
+ */
+public class ParkedSessions {
+
+    private static final int CAPACITY = Integer.parseInt(ConfigReader.getValue("rerun_parked_sessions", "4"));
+
+    private static final Map<String, Queue<Parked>> parked = new ConcurrentHashMap<>();
+    private static final AtomicInteger parkedCount = new AtomicInteger();
+    private static final ThreadLocal<String> parkingRequest = new ThreadLocal<>();
+
+    /**
+     * Asks for the session of the current thread to be parked when its test cleans up.
+     *
+     * @param browser the browser of the session, as passed to the test's {@code browser} parameter
+     */
+    public static void requestParking(String browser) {
+        parkingRequest.set(browser.toLowerCase());
+    }
+
+    /**
+     * Parks the session of the current thread if parking was requested and there is room left.
+     * A parked session is detached from the thread, its watchdog lease and its traffic capture,
+     * but stays open and logged in.
+     *
+     * @return true if the session was parked, false if the caller should quit it as usual
+     */
+    public static boolean parkIfRequested() {
+        String browser = parkingRequest.get();
+        parkingRequest.remove();
+        WebDriver driver = WebDriverMgr.getDriver();
+        if (browser == null || driver == null) {
+            return false;
+        }
+        if (parkedCount.incrementAndGet() > CAPACITY) {
+            parkedCount.decrementAndGet();
+            return false;
+        }
+        SessionWatchdog.release(driver);
+        AssetPolicy.detach();
+        NetworkArchive.detach();
+        WebDriverMgr.removeWebDriver();
+        parked.computeIfAbsent(browser, key -> new ConcurrentLinkedQueue<>())
+                .add(new Parked(driver, ChromeProfileManager.detachProfile()));
+        System.out.println("Parked the " + browser + " session of the failed test for its rerun.");
+        return true;
+    }
+
+    /**
+     * Takes a parked session for a new test on the current thread.
+     *
+     * @param browser the browser the test asks for
+     * @return the parked session, or null if none is available for the browser
+     */
+    public static WebDriver take(String browser) {
+        Queue<Parked> queue = parked.get(browser.toLowerCase());
+        Parked session = queue == null ? null : queue.poll();
+        if (session == null) {
+            return null;
+        }
+        parkedCount.decrementAndGet();
+        ChromeProfileManager.adoptProfile(session.profile);
+        return session.driver;
+    }
+
+    /**
+     * Quits every session that is still parked.
+     */
+    public static void quitAll() {
+        List<Parked> leftovers = new ArrayList<>();
+        parked.values().forEach(queue -> {
+            for (Parked session = queue.poll(); session != null; session = queue.poll()) {
+                leftovers.add(session);
+            }
+        });
+        for (Parked session : leftovers) {
+            parkedCount.decrementAndGet();
+            try {
+                session.driver.quit();
+            } catch (RuntimeException e) {
+                System.out.println("Unable to quit a parked session: " + e.getMessage());
+            }
+            RunMetrics.sessionClosed();
+            if (session.profile != null) {
+                ChromeProfileManager.adoptProfile(session.profile);
+                ChromeProfileManager.releaseProfile();
+            }
+        }
+    }
+
+    private static final class Parked {
+        private final WebDriver driver;
+        private final Path profile;
+
+        private Parked(WebDriver driver, Path profile) {
+            this.driver = driver;
+            this.profile = profile;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.openqa.selenium.WebDriver;
+import snap.network.AssetPolicy;
+import snap.network.NetworkArchive;
+import snap.reports.RunMetrics;
+
+/**
+ * Tracks every browser session and quits the ones that leaked.
+ * <p>
+ * A session is registered when it is handed to {@link WebDriverMgr} and released when it is quit
+ * through {@link WebDriverMgr#quitWebDriver()}. Every timed framework action renews the lease of
+ * the current thread's session. A background check quits sessions whose owner thread has ended or
+ * whose lease has not been renewed within {@code session_lease_minutes}, and a session is also
+ * reclaimed when its thread registers a new one without quitting the old one. Sessions still open
+ * when the run finishes are reclaimed by {@link #sweep()}. Reclaiming a session also stops its
+ * traffic capture and deletes its Chrome profile clone, as {@link WebDriverMgr#quitWebDriver()}
+ * would have done.
+ */
+public class SessionWatchdog {
+
+    private static final Map<WebDriver, Lease> leases = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Lease> currentLease = new ThreadLocal<>();
+    private static final List<String> reclaimed = new CopyOnWriteArrayList<>();
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Starts tracking a session owned by the current thread. Call after its traffic capture is
+     * attached and its profile clone is assigned, so both can be released if it is reclaimed.
+     *
+     * @param driver the newly created driver
+     */
+    public static void register(WebDriver driver) {
+        Lease previous = currentLease.get();
+        if (previous != null && previous.driver != driver) {
+            reap(previous, "replaced by a new session on the same thread without being quit");
+        }
+        Lease lease = new Lease(driver, Thread.currentThread());
+        leases.put(driver, lease);
+        currentLease.set(lease);
+        startChecks();
+    }
+
+    /**
+     * Renews the lease of the current thread's session and remembers the test using it. The
+     * session is looked up through {@link WebDriverMgr}, so tasks running with a captured
+     * {@link ThreadContext} renew it as well.
+     */
+    public static void touch() {
+        WebDriver driver = WebDriverMgr.getDriver();
+        Lease lease = driver == null ? null : leases.get(driver);
+        if (lease != null) {
+            lease.lastActivity = System.currentTimeMillis();
+            String testName = ActionTimer.getCurrentTest();
+            if (testName != null) {
+                lease.testName = testName;
+            }
+        }
+    }
+
+    /**
+     * Stops tracking a session that is being quit normally.
+     *
+     * @param driver the driver about to be quit
+     */
+    public static void release(WebDriver driver) {
+        Lease lease = leases.remove(driver);
+        if (lease != null && currentLease.get() == lease) {
+            currentLease.remove();
+        }
+    }
+
+    /**
+     * Quits every session that is still open. Call once all tests have finished.
+     */
+    public static void sweep() {
+        for (Lease lease : new ArrayList<>(leases.values())) {
+            reap(lease, "still open when the run finished");
+        }
+    }
+
+    /**
+     * Returns a description of every leaked session reclaimed during the run.
+     *
+     * @return the reclaimed sessions, in the order they were reclaimed
+     */
+    public static List<String> getReclaimedSessions() {
+        return new ArrayList<>(reclaimed);
+    }
+
+    private static synchronized void startChecks() {
+        if (scheduler != null) {
+            return;
+        }
+        long interval = Long.parseLong(ConfigReader.getValue("session_watchdog_interval_seconds", "30"));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(SessionWatchdog::check, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private static void check() {
+        long leaseMillis = TimeUnit.MINUTES.toMillis(Long.parseLong(ConfigReader.getValue("session_lease_minutes", "15")));
+        long now = System.currentTimeMillis();
+        for (Lease lease : new ArrayList<>(leases.values())) {
+            if (!lease.owner.isAlive()) {
+                reap(lease, "owner thread " + lease.owner.getName() + " has ended");
+            } else if (now - lease.lastActivity > leaseMillis) {
+                reap(lease, "no activity for " + TimeUnit.MILLISECONDS.toSeconds(now - lease.lastActivity) + " s");
+            }
+        }
+    }
+
+    private static void reap(Lease lease, String reason) {
+        // Whoever removes the lease first owns the quit, so a session is never quit twice
+        if (leases.remove(lease.driver) == null) {
+            return;
+        }
+        try {
+            lease.driver.quit();
+        } catch (RuntimeException e) {
+            System.out.println("Unable to quit leaked session: " + e.getMessage());
+        }
+        for (Runnable detach : lease.detachTasks) {
+            detach.run();
+        }
+        if (lease.profile != null) {
+            ChromeProfileManager.deleteProfile(lease.profile);
+        }
+        RunMetrics.sessionClosed();
+        String description = String.format("%s (thread %s, open %d s): %s",
+                lease.testName == null ? "unknown test" : lease.testName, lease.owner.getName(),
+                TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - lease.startTime), reason);
+        reclaimed.add(description);
+        System.out.println("Leaked session reclaimed - " + description);
+    }
+
+    private static final class Lease {
+        private final WebDriver driver;
+        private final Thread owner;
+        private final long startTime = System.currentTimeMillis();
+        private volatile long lastActivity = startTime;
+        private volatile String testName;
+        private final List<Runnable> detachTasks = new ArrayList<>();
+        private final Path profile = ChromeProfileManager.currentProfile();
+
+        private Lease(WebDriver driver, Thread owner) {
+            this.driver = driver;
+            this.owner = owner;
+            detachTasks.add(AssetPolicy.detachTask());
+            detachTasks.add(NetworkArchive.detachTask());
+        }
+    }
+}
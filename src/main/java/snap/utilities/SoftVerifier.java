@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import com.aventstack.extentreports.Status;
+import snap.listeners.ReportListeners;
+
+/**
+ * Collects expectations about the current page and checks them together.
+ * <p>
+ * {@link #assertAll()} evaluates every queued expectation against one {@link DomSnapshot}. While
+ * some of them fail, a new snapshot is taken every {@code soft_verify_poll_ms}, up to
+ * {@code soft_verify_timeout_seconds} or the time left in the {@link DeadlineBudget}, so content
+ * Appian is still rendering gets a chance to appear at the cost of one round trip per attempt.
+ * The outcome is logged as a single report step with a single screenshot, and every failing
+ * expectation is listed in one {@link AssertionError}. Against a scripted snapshot, as taken
+ * in dry runs, every expectation counts as met.
+ * <pre>
+ * common.verify()
+ *         .textIsPresent(firstName)
+ *         .textIsPresent(lastName)
+ *         .assertAll();
+ * </pre>
+ */
+public final class SoftVerifier {
+
+    private static final long TIMEOUT_SECONDS = Long.parseLong(
+            ConfigReader.getValue("soft_verify_timeout_seconds", "10"));
+    private static final long POLL_MILLIS = Long.parseLong(ConfigReader.getValue("soft_verify_poll_ms", "500"));
+
+    private final WebDriver driver;
+    private final Function<WebDriver, DomSnapshot> snapshots;
+    private final Duration timeout;
+    private final List<Expectation> expectations = new ArrayList<>();
+
+    SoftVerifier(WebDriver driver) {
+        this(driver, DomSnapshot::capture, Duration.ofSeconds(TIMEOUT_SECONDS));
+    }
+
+    SoftVerifier(WebDriver driver, Function<WebDriver, DomSnapshot> snapshots, Duration timeout) {
+        this.driver = driver;
+        this.snapshots = snapshots;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Expects a visible element to contain the text.
+     *
+     * @param text the text
+     * @return this verifier
+     */
+    public SoftVerifier textIsPresent(String text) {
+        return expect("text '" + text + "' is present", snapshot -> snapshot.hasText(text));
+    }
+
+    /**
+     * Expects no visible element to contain the text.
+     *
+     * @param text the text
+     * @return this verifier
+     */
+    public SoftVerifier textIsAbsent(String text) {
+        return expect("text '" + text + "' is absent", snapshot -> !snapshot.hasText(text));
+    }
+
+    /**
+     * Expects the first element matched by the locator to be displayed. Locators the snapshot
+     * cannot evaluate are checked against the live page.
+     *
+     * @param locator the locator
+     * @return this verifier
+     */
+    public SoftVerifier elementIsDisplayed(By locator) {
+        if (DomSnapshot.supports(locator)) {
+            return expect(locator + " is displayed", snapshot -> snapshot.isDisplayed(locator));
+        }
+        return expect(locator + " is displayed", snapshot -> {
+            List<WebElement> elements = driver.findElements(locator);
+            return !elements.isEmpty() && elements.get(0).isDisplayed();
+        });
+    }
+
+    /**
+     * Expects the field with the given label to hold the value.
+     *
+     * @param fieldName the field label
+     * @param expected  the expected value
+     * @return this verifier
+     */
+    public SoftVerifier fieldHasValue(String fieldName, String expected) {
+        return expect("field '" + fieldName + "' has value '" + expected + "'",
+                snapshot -> Objects.equals(snapshot.getFieldValue(fieldName), expected));
+    }
+
+    /**
+     * Queues a custom expectation evaluated against the snapshot.
+     *
+     * @param description the description used in the report
+     * @param check       the check
+     * @return this verifier
+     */
+    public SoftVerifier expect(String description, Predicate<DomSnapshot> check) {
+        expectations.add(new Expectation(description, check));
+        return this;
+    }
+
+    /**
+     * Checks every queued expectation, logs the outcome with one screenshot, and fails with all
+     * unmet expectations listed.
+     *
+     * @throws AssertionError if any expectation is not met before the timeout
+     */
+    public void assertAll() {
+        List<Expectation> failed;
+        try (ActionTimer.Timing timing = ActionTimer.time("assertAll", expectations.size() + " expectations")) {
+            long deadline = System.currentTimeMillis()
+                    + DeadlineBudget.bound(timeout).toMillis();
+            DomSnapshot.invalidate();
+            while (true) {
+                DomSnapshot snapshot = snapshots.apply(driver);
+                if (snapshot.isScripted()) {
+                    // The driver has no page to check, as in a dry run
+                    failed = Collections.emptyList();
+                    break;
+                }
+                failed = expectations.stream().filter(expectation -> !expectation.isMet(snapshot))
+                        .collect(Collectors.toList());
+                if (failed.isEmpty() || System.currentTimeMillis() + POLL_MILLIS > deadline || !sleep(POLL_MILLIS)) {
+                    break;
+                }
+            }
+        }
+        List<Expectation> unmet = failed;
+        int met = expectations.size() - unmet.size();
+        String summary = met + " of " + expectations.size() + " expectations met" + expectations.stream()
+                .map(expectation -> "<br>" + (unmet.contains(expectation) ? "FAILED: " : "passed: ")
+                        + expectation.description).collect(Collectors.joining());
+        ReportListeners.logScreenshotStep(unmet.isEmpty() ? Status.PASS : Status.FAIL, summary);
+        if (!unmet.isEmpty()) {
+            throw new AssertionError(unmet.size() + " of " + expectations.size() + " expectations failed: "
+                    + unmet.stream().map(expectation -> expectation.description).collect(Collectors.joining("; ")));
+        }
+    }
+
+    /**
+     * Waits before the next snapshot.
+     *
+     * @param millis the time to wait
+     * @return false if the thread was interrupted and polling should stop
+     */
+    private static boolean sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class Expectation {
+        private final String description;
+        private final Predicate<DomSnapshot> check;
+
+        private Expectation(String description, Predicate<DomSnapshot> check) {
+            this.description = description;
+            this.check = check;
+        }
+
+        private boolean isMet(DomSnapshot snapshot) {
+            try {
+                return check.test(snapshot);
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+    }
+}
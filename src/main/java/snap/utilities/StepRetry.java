@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.util.concurrent.TimeUnit;
+import org.openqa.selenium.ElementClickInterceptedException;
+import org.openqa.selenium.ElementNotInteractableException;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.UnhandledAlertException;
+import org.openqa.selenium.WebDriver;
+import com.appiancorp.ps.automatedtest.exception.ObjectNotFoundTestException;
+import com.appiancorp.ps.automatedtest.exception.StaleElementTestException;
+import com.appiancorp.ps.automatedtest.exception.TimeoutTestException;
+import com.appiancorp.ps.automatedtest.exception.WaitForProgressBarTestException;
+import com.appiancorp.ps.automatedtest.exception.WaitForWorkingTestException;
+import com.appiancorp.ps.automatedtest.fixture.SitesFixture;
+import com.aventstack.extentreports.Status;
+import snap.listeners.ReportListeners;
+import snap.reports.RunMetrics;
+
+/**
+ * Retries a single step when it fails for a transient reason, instead of failing the whole test.
+ * <p>
+ * A failure is transient when the page was merely not ready: a stale or intercepted element, an
+ * element not rendered or not interactable yet, an unexpected alert, or a wait that timed out while
+ * Appian was busy. The Appian fixture reports these as its own cause-less {@code *TestException}
+ * types, which are classified by type as well. Anything else, including assertion errors, a lost session and an exhausted
+ * {@link DeadlineBudget}, is deterministic and thrown at once. Before each retry the page is
+ * brought back to a known state (an open alert is accepted, then the progress bar is awaited) and
+ * the step backs off, doubling {@code step_retry_backoff_ms} each time, for up to
+ * {@code step_retry_attempts} retries. Every retry is logged in the report as a warning.
+ * <p>
+ * Only wrap code that is safe to run again: a click that threw did not happen, but a click followed
+ * by more work should be split so the click is not repeated.
+ */
+public class StepRetry {
+
+    private static final int RETRIES = Integer.parseInt(ConfigReader.getValue("step_retry_attempts", "2"));
+    private static final long BACKOFF_MILLIS = Long.parseLong(ConfigReader.getValue("step_retry_backoff_ms", "500"));
+
+    /**
+     * Runs a step, retrying it after transient failures.
+     *
+     * @param action   the action name, for example "clickOnButton"
+     * @param argument the identifying argument, for example the button name, or null
+     * @param step     the step to run; it must be safe to run again after it threw
+     */
+    public static void run(String action, String argument, Runnable step) {
+        String name = argument == null ? action : action + " [" + argument + "]";
+        for (int attempt = 1; ; attempt++) {
+            try {
+                step.run();
+                if (attempt > 1) {
+                    ReportListeners.logStep("Step " + name + " succeeded on attempt " + attempt + ".");
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (attempt > RETRIES || !isTransient(e)) {
+                    throw e;
+                }
+                long backoff = BACKOFF_MILLIS << (attempt - 1);
+                if (DeadlineBudget.remainingMillis() <= backoff) {
+                    throw e;
+                }
+                ReportListeners.logStep(Status.WARNING, "Step " + name + " failed with transient "
+                        + e.getClass().getSimpleName() + ", retrying (" + attempt + " of " + RETRIES + "): "
+                        + String.valueOf(e.getMessage()).split("\n")[0]);
+                RunMetrics.stepRetried();
+                long started = System.nanoTime();
+                recover();
+                sleep(backoff);
+                ActionTimer.record("stepRetry", action, System.nanoTime() - started);
+            }
+        }
+    }
+
+    /**
+     * Classifies a failure as transient, meaning the same step may succeed once the page settles.
+     * Besides the Selenium exceptions, this covers the exceptions the Appian fixture throws in their
+     * place, which carry neither the original exception nor its message.
+     *
+     * @param failure the failure to classify
+     * @return true if the step is worth retrying
+     */
+    static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DeadlineBudget.ExhaustedException || cause instanceof NoSuchSessionException) {
+                return false;
+            }
+            if (cause instanceof StaleElementReferenceException || cause instanceof ElementClickInterceptedException
+                    || cause instanceof ElementNotInteractableException || cause instanceof NoSuchElementException
+                    || cause instanceof UnhandledAlertException || cause instanceof TimeoutException) {
+                return true;
+            }
+            // The fixture's stop-on-error variants extend these types and are transient as well
+            if (cause instanceof TimeoutTestException || cause instanceof StaleElementTestException
+                    || cause instanceof ObjectNotFoundTestException || cause instanceof WaitForProgressBarTestException
+                    || cause instanceof WaitForWorkingTestException) {
+                return true;
+            }
+            String message = String.valueOf(cause.getMessage()).toLowerCase();
+            if (message.contains("stale element") || message.contains("is not clickable")
+                    || message.contains("progress bar")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Brings the page back to a known state after a transient failure: accepts an open alert and
+     * waits for Appian to finish what it is doing. Recovery problems are only logged, the retry
+     * itself will show whether the page recovered.
+     */
+    private static void recover() {
+        WebDriver driver = WebDriverMgr.getDriver();
+        SitesFixture fixture = WebDriverMgr.getFixture();
+        try {
+            if (driver != null) {
+                driver.switchTo().alert().accept();
+                ReportListeners.logStep("Accepted an open alert before retrying.");
+            }
+        } catch (NoAlertPresentException e) {
+            // Nothing to dismiss
+        } catch (RuntimeException e) {
+            System.out.println("Unable to accept the alert before retrying: " + e.getMessage());
+        }
+        try {
+            if (fixture != null) {
+                fixture.waitForProgressBar();
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Progress bar still showing before retrying: " + e.getMessage());
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
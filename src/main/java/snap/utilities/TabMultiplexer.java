@@ -0,0 +1,500 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.openqa.selenium.chromium.ChromiumOptions;
+import org.openqa.selenium.support.decorators.Decorated;
+import org.openqa.selenium.support.decorators.WebDriverDecorator;
+
+/**
+ * Runs several test flows in the tabs of one shared Chromium browser instead of starting a
+ * browser per test, so a CI agent fits more flows in the same memory.
+ * <p>
+ * Every flow gets its own tab in a separate browser context, created through the DevTools
+ * {@code Target.createBrowserContext} command, so cookies, storage and the Appian login are not
+ * shared between tabs. The flow drives its tab through a tab-bound driver: each command takes the
+ * lock of the shared browser, switches to the tab (and back into its frames) if another flow used
+ * the browser last, and releases the lock when it returns. Flows waiting on Appian, for example in
+ * {@code waitForProgressBar}, poll with short commands, so the other tabs run in between.
+ * <p>
+ * Windows a flow opens from its tab belong to that flow, told apart by the browser context the
+ * DevTools {@code Target.getTargets} command reports for them: {@code getWindowHandles()} only lists
+ * them, which keeps {@code CommonMethods.switchToChildWindow()} working. Implicit waits are not
+ * applied, since they would hold the lock of the shared browser for their whole duration; the
+ * fixture and the explicit waits poll instead. Quitting a tab-bound driver closes its browser
+ * context only. Browsers that cannot create isolated contexts, such as remote or Firefox
+ * sessions, fall back to one browser per flow.
+ * <p>
+ * Enabled with {@code tab_multiplexing=true}; {@code tabs_per_browser} caps the flows sharing a
+ * browser. Idle browsers are kept for the next flows and quit by {@link #shutdown()}.
+ */
+public class TabMultiplexer {
+
+    private static final boolean ENABLED =
+            Boolean.parseBoolean(ConfigReader.getValue("tab_multiplexing", "false"));
+    private static final int TABS_PER_BROWSER =
+            Math.max(1, Integer.parseInt(ConfigReader.getValue("tabs_per_browser", "4")));
+
+    // Shared browsers by browser key; the lists and the reservations are guarded by the map
+    private static final Map<String, List<Host>> hosts = new HashMap<>();
+    // Tab-bound drivers handed out and not yet quit, by identity
+    private static final Map<WebDriver, Tab> tabs = Collections.synchronizedMap(new IdentityHashMap<>());
+    // Browser keys whose browsers cannot create isolated tabs and get one browser per flow
+    private static final Set<String> isolationUnsupported = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Checks whether tab multiplexing is enabled in config.properties.
+     *
+     * @return true if flows share browsers through tabs
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Keeps background tabs running at full speed. Chromium throttles the timers and rendering of
+     * tabs that are not in front, which would slow down every flow but the focused one.
+     *
+     * @param options the options of the shared browser
+     */
+    public static void applyTo(ChromiumOptions<?> options) {
+        options.addArguments("--disable-background-timer-throttling", "--disable-renderer-backgrounding",
+                "--disable-backgrounding-occluded-windows");
+    }
+
+    /**
+     * Opens a flow in a new isolated tab of a shared browser, starting a browser with the factory
+     * when every shared browser of the key is full. When the browser cannot create isolated tabs,
+     * the flow gets a browser of its own instead.
+     *
+     * @param browserKey     the browser and its mode, for example "chrome-headless"; only flows with
+     *                       the same key share a browser
+     * @param browserFactory starts a new browser
+     * @return the tab-bound driver of the flow, or a dedicated browser
+     */
+    public static WebDriver openTab(String browserKey, Supplier<WebDriver> browserFactory) {
+        if (isolationUnsupported.contains(browserKey)) {
+            return browserFactory.get();
+        }
+        Host host = reserve(browserKey);
+        if (host == null) {
+            WebDriver browser = browserFactory.get();
+            if (!(browser instanceof ChromiumDriver)) {
+                isolationUnsupported.add(browserKey);
+                System.out.println("Tab multiplexing needs a local Chromium browser; using one " + browserKey
+                        + " browser per flow.");
+                return browser;
+            }
+            host = new Host((ChromiumDriver) browser);
+            synchronized (hosts) {
+                hosts.computeIfAbsent(browserKey, key -> new ArrayList<>()).add(host);
+            }
+            System.out.println("***** Started a shared " + browserKey + " browser for up to " + TABS_PER_BROWSER
+                    + " flows *****");
+        }
+        try {
+            Tab tab = host.openTab();
+            WebDriver driver = new TabBinding(tab).decorate(host.browser);
+            tabs.put(driver, tab);
+            return driver;
+        } catch (IsolationUnsupportedException e) {
+            isolationUnsupported.add(browserKey);
+            System.out.println("Unable to open an isolated tab, using one " + browserKey + " browser per flow: "
+                    + e.getMessage());
+            return dedicatedBrowser(host, browserKey, browserFactory);
+        } catch (WebDriverException e) {
+            // Possibly a passing failure; later flows still try tabs
+            System.out.println("Unable to open a tab, using a dedicated browser for this flow: " + e.getMessage());
+            return dedicatedBrowser(host, browserKey, browserFactory);
+        }
+    }
+
+    private static WebDriver dedicatedBrowser(Host host, String browserKey, Supplier<WebDriver> browserFactory) {
+        unreserve(host);
+        // A browser nobody else uses yet becomes the dedicated browser of this flow
+        synchronized (hosts) {
+            if (host.reserved == 0) {
+                hosts.get(browserKey).remove(host);
+                return host.browser;
+            }
+        }
+        return browserFactory.get();
+    }
+
+    /**
+     * Checks whether a driver is a tab-bound driver of a shared browser. Features attaching to the
+     * DevTools connection of a browser must skip such drivers, since the connection is shared.
+     *
+     * @param driver the driver to check
+     * @return true if the driver drives a tab of a shared browser
+     */
+    public static boolean isTab(WebDriver driver) {
+        return driver != null && tabs.containsKey(driver);
+    }
+
+    /**
+     * Quits every shared browser, including the tabs of flows that never quit their driver.
+     */
+    public static void shutdown() {
+        List<Host> all = new ArrayList<>();
+        synchronized (hosts) {
+            hosts.values().forEach(all::addAll);
+            hosts.clear();
+        }
+        tabs.clear();
+        for (Host host : all) {
+            try {
+                host.browser.quit();
+            } catch (WebDriverException e) {
+                System.out.println("Unable to quit a shared browser: " + e.getMessage());
+            }
+        }
+        if (!all.isEmpty()) {
+            System.out.println("Quit " + all.size() + " shared browser(s).");
+        }
+    }
+
+    private static Host reserve(String browserKey) {
+        synchronized (hosts) {
+            for (Host host : hosts.getOrDefault(browserKey, Collections.emptyList())) {
+                if (host.reserved < TABS_PER_BROWSER) {
+                    host.reserved++;
+                    return host;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static void unreserve(Host host) {
+        synchronized (hosts) {
+            host.reserved--;
+        }
+    }
+
+    /**
+     * Thrown when the browser creates isolated contexts but the driver cannot reach their tabs, which
+     * no later attempt will change.
+     */
+    private static final class IsolationUnsupportedException extends WebDriverException {
+        private IsolationUnsupportedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * A shared browser. Its lock is held for every command sent to it, and it remembers which tab,
+     * window and frames it currently points at.
+     */
+    private static final class Host {
+        private final ChromiumDriver browser;
+        private final ReentrantLock lock = new ReentrantLock(true);
+        // The initial window, which stays open so the browser outlives its tabs
+        private final String anchorHandle;
+        // Windows owned by a tab, guarded by the lock
+        private final Map<String, Tab> owners = new HashMap<>();
+        // Open tabs by browser context id, guarded by the lock
+        private final Map<String, Tab> contexts = new HashMap<>();
+        private Tab focusedTab;
+        private String focusedHandle;
+        // Number of tabs open or being opened, guarded by the host map
+        private int reserved = 1;
+
+        private Host(ChromiumDriver browser) {
+            this.browser = browser;
+            this.anchorHandle = browser.getWindowHandle();
+            this.focusedHandle = anchorHandle;
+        }
+
+        private Tab openTab() {
+            lock.lock();
+            try {
+                // DevTools commands run against the current window, which must still exist
+                focusAnchor();
+                Map<String, Object> context = browser.executeCdpCommand("Target.createBrowserContext",
+                        Collections.emptyMap());
+                String contextId = (String) context.get("browserContextId");
+                Map<String, Object> params = new HashMap<>();
+                params.put("url", "about:blank");
+                params.put("browserContextId", contextId);
+                String handle = (String) browser.executeCdpCommand("Target.createTarget", params).get("targetId");
+                if (!browser.getWindowHandles().contains(handle)) {
+                    dispose(contextId);
+                    throw new IsolationUnsupportedException(
+                            "The driver does not expose tabs of other browser contexts");
+                }
+                Tab tab = new Tab(this, contextId, handle);
+                owners.put(handle, tab);
+                contexts.put(contextId, tab);
+                return tab;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void focusAnchor() {
+            if (!anchorHandle.equals(focusedHandle) || focusedTab != null) {
+                browser.switchTo().window(anchorHandle);
+                focusedTab = null;
+                focusedHandle = anchorHandle;
+            }
+        }
+
+        /**
+         * Assigns open windows nobody owns yet to the tab whose browser context they were opened in.
+         * Windows of no known context stay unowned. Called with the lock held.
+         *
+         * @param open the open window handles
+         */
+        @SuppressWarnings("unchecked")
+        private void claimWindows(Set<String> open) {
+            owners.keySet().retainAll(open);
+            boolean unowned = false;
+            for (String window : open) {
+                if (!window.equals(anchorHandle) && !owners.containsKey(window)) {
+                    unowned = true;
+                    break;
+                }
+            }
+            if (!unowned) {
+                return;
+            }
+            try {
+                // Window handles of a Chromium driver are the DevTools target ids
+                List<Map<String, Object>> targets = (List<Map<String, Object>>) browser
+                        .executeCdpCommand("Target.getTargets", Collections.emptyMap()).get("targetInfos");
+                for (Map<String, Object> target : targets) {
+                    String window = (String) target.get("targetId");
+                    Tab owner = contexts.get((String) target.get("browserContextId"));
+                    if (owner != null && open.contains(window)) {
+                        owners.putIfAbsent(window, owner);
+                    }
+                }
+            } catch (WebDriverException e) {
+                System.out.println("Unable to read the browser contexts of new windows: " + e.getMessage());
+            }
+        }
+
+        private void dispose(String contextId) {
+            try {
+                browser.executeCdpCommand("Target.disposeBrowserContext",
+                        Collections.singletonMap("browserContextId", contextId));
+            } catch (WebDriverException e) {
+                System.out.println("Unable to dispose browser context " + contextId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A flow's tab, together with the windows it opened and the frames it switched into.
+     */
+    private static final class Tab {
+        private final Host host;
+        private final String contextId;
+        private final String handle;
+        // The window the flow last switched to, and the frames it entered within it
+        private String current;
+        private final List<Object> frames = new ArrayList<>();
+        private boolean closed;
+
+        private Tab(Host host, String contextId, String handle) {
+            this.host = host;
+            this.contextId = contextId;
+            this.handle = handle;
+            this.current = handle;
+        }
+
+        /**
+         * Points the shared browser at the window and frames of this flow. Called with the lock held.
+         */
+        private void focus() {
+            if (closed) {
+                throw new NoSuchSessionException("The tab of this flow has been closed");
+            }
+            if (host.focusedTab == this && current.equals(host.focusedHandle)) {
+                return;
+            }
+            WebDriver.TargetLocator locator = host.browser.switchTo();
+            locator.window(current);
+            for (Object frame : frames) {
+                if (frame instanceof Integer) {
+                    locator.frame((Integer) frame);
+                } else if (frame instanceof WebElement) {
+                    locator.frame((WebElement) frame);
+                } else {
+                    locator.frame(String.valueOf(frame));
+                }
+            }
+            host.focusedTab = this;
+            host.focusedHandle = current;
+        }
+
+        /**
+         * Returns the windows of this flow still open, including the ones opened in its browser
+         * context since the last call. Called with the lock held.
+         */
+        private Set<String> windowHandles() {
+            Set<String> open = host.browser.getWindowHandles();
+            host.claimWindows(open);
+            Set<String> owned = new LinkedHashSet<>();
+            if (open.contains(handle)) {
+                owned.add(handle);
+            }
+            for (String window : open) {
+                if (host.owners.get(window) == this) {
+                    owned.add(window);
+                }
+            }
+            return owned;
+        }
+
+        /**
+         * Closes the browser context of this flow, with every window it opened.
+         */
+        private void close() {
+            host.lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                host.focusAnchor();
+                host.dispose(contextId);
+                host.contexts.remove(contextId);
+                Iterator<Map.Entry<String, Tab>> owned = host.owners.entrySet().iterator();
+                while (owned.hasNext()) {
+                    if (owned.next().getValue() == this) {
+                        owned.remove();
+                    }
+                }
+            } finally {
+                host.lock.unlock();
+            }
+            unreserve(host);
+        }
+    }
+
+    /**
+     * Decorator binding every call on the driver, and on the elements, navigation and windows it
+     * returns, to the tab of one flow.
+     */
+    private static final class TabBinding extends WebDriverDecorator<WebDriver> {
+        private final Tab tab;
+
+        private TabBinding(Tab tab) {
+            this.tab = tab;
+        }
+
+        @Override
+        public Object call(Decorated<?> target, Method method, Object[] args) throws Throwable {
+            Object original = target.getOriginal();
+            String name = method.getName();
+            if (original instanceof WebDriver.Timeouts && "implicitlyWait".equals(name)) {
+                // An implicit wait would hold the shared browser for its whole duration
+                return original;
+            }
+            Host host = tab.host;
+            host.lock.lock();
+            try {
+                if (original instanceof WebDriver) {
+                    if ("quit".equals(name) || "close".equals(name) && tab.current.equals(tab.handle)) {
+                        tabs.values().remove(tab);
+                        tab.close();
+                        return null;
+                    }
+                    if ("getWindowHandle".equals(name) && !tab.closed) {
+                        return tab.current;
+                    }
+                    if ("getWindowHandles".equals(name) && !tab.closed) {
+                        return tab.windowHandles();
+                    }
+                }
+                if (original instanceof WebDriver.TargetLocator && "window".equals(name)) {
+                    String window = String.valueOf(args[0]);
+                    if (!host.owners.containsKey(window)) {
+                        host.claimWindows(host.browser.getWindowHandles());
+                    }
+                    Tab owner = host.owners.get(window);
+                    // Windows of no flow's context, such as the anchor, are off limits as well
+                    if (owner != tab) {
+                        throw new NoSuchWindowException("Window " + window + " belongs to another flow");
+                    }
+                }
+                tab.focus();
+                Object result = super.call(target, method, args);
+                track(original, name, args);
+                return result;
+            } finally {
+                host.lock.unlock();
+            }
+        }
+
+        /**
+         * Records where a successful call left the shared browser. Called with the lock held.
+         */
+        private void track(Object original, String name, Object[] args) {
+            Host host = tab.host;
+            if (original instanceof WebDriver && "close".equals(name)) {
+                // WebDriver leaves no current window after a close; the flow has to switch first
+                host.owners.remove(tab.current);
+                host.focusedTab = null;
+                host.focusedHandle = null;
+            } else if (original instanceof WebDriver.TargetLocator) {
+                switch (name) {
+                    case "window":
+                    case "newWindow":
+                        tab.current = host.browser.getWindowHandle();
+                        tab.frames.clear();
+                        host.owners.put(tab.current, tab);
+                        break;
+                    case "frame":
+                        tab.frames.add(args[0]);
+                        break;
+                    case "parentFrame":
+                        if (!tab.frames.isEmpty()) {
+                            tab.frames.remove(tab.frames.size() - 1);
+                        }
+                        break;
+                    case "defaultContent":
+                        tab.frames.clear();
+                        break;
+                    default:
+                        break;
+                }
+                host.focusedHandle = tab.current;
+            }
+        }
+    }
+}
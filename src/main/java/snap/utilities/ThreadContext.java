@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import org.openqa.selenium.WebDriver;
+import com.appiancorp.ps.automatedtest.fixture.SitesFixture;
+import com.aventstack.extentreports.ExtentTest;
+import snap.listeners.ReportListeners;
+
+/**
+ * Snapshot of the per-thread state of a test: its WebDriver, SitesFixture, Extent test, action
+ * timing test name and deadline budget.
+ * <p>
+ * This state lives in {@code ThreadLocal}s, which a task running on another thread (a virtual
+ * thread, or a background screenshot write) does not see. Capture the context on the test thread
+ * and apply it on the other thread so the task reports into the right test and uses the right
+ * session.
+ */
+public final class ThreadContext {
+
+    private final WebDriver driver;
+    private final SitesFixture fixture;
+    private final ExtentTest extentTest;
+    private final String testName;
+    private final DeadlineBudget.TestBudget budget;
+
+    private ThreadContext(WebDriver driver, SitesFixture fixture, ExtentTest extentTest, String testName,
+                          DeadlineBudget.TestBudget budget) {
+        this.driver = driver;
+        this.fixture = fixture;
+        this.extentTest = extentTest;
+        this.testName = testName;
+        this.budget = budget;
+    }
+
+    /**
+     * Captures the test state of the current thread.
+     *
+     * @return the captured context
+     */
+    public static ThreadContext capture() {
+        return new ThreadContext(WebDriverMgr.getDriver(), WebDriverMgr.getFixture(), ReportListeners.getExtentTest(),
+                ActionTimer.getCurrentTest(), DeadlineBudget.currentTest());
+    }
+
+    /**
+     * Makes the captured state the test state of the current thread.
+     */
+    public void apply() {
+        WebDriverMgr.restoreWebDriver(driver);
+        WebDriverMgr.setFixture(fixture);
+        ReportListeners.setExtentTest(extentTest);
+        ActionTimer.setCurrentTest(testName);
+        DeadlineBudget.restoreTest(budget);
+    }
+
+    /**
+     * Removes all test state from the current thread.
+     */
+    public static void clear() {
+        WebDriverMgr.removeWebDriver();
+        WebDriverMgr.removeFixture();
+        ReportListeners.setExtentTest(null);
+        ActionTimer.setCurrentTest(null);
+        DeadlineBudget.endTest();
+    }
+
+    /**
+     * Wraps a task so it runs with this context and leaves no state behind on its thread.
+     *
+     * @param task the task to wrap
+     * @return the wrapped task
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            apply();
+            try {
+                task.run();
+            } finally {
+                clear();
+            }
+        };
+    }
+}
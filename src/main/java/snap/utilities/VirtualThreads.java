@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2024 Arjit Yadav
+ *
+ * Permission is hereby granted to use, copy, modify, and distribute this code for any purpose, with or without
+ * modifications, subject to the following conditions:
+ *
+ * 1. This notice shall be included in all copies or substantial portions of the code.
+ * 2. Suggestions and improvements are welcome and can be submitted via pull requests or issues on the GitHub repository.
+ *
+ * THE CODE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES, OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT,
+ * OR OTHERWISE, ARISING FROM, OUT OF, OR IN CONNECTION WITH THE CODE OR THE USE OR OTHER DEALINGS IN THE CODE.
+ */
+
+package snap.utilities;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads of the virtual-thread execution mode.
+ * <p>
+ * With {@code virtual_threads=true} and a Java 21 runtime, threads are virtual threads, so
+ * blocking on WebDriver calls, progress bar polling or file I/O does not hold a platform thread.
+ * The framework is compiled for Java 11, so the Java 21 API is looked up reflectively; on older
+ * runtimes, or when the mode is off, daemon platform threads are used instead.
+ */
+public class VirtualThreads {
+
+    private static final ThreadFactory VIRTUAL_FACTORY = createVirtualFactory();
+    private static final AtomicInteger platformThreadCount = new AtomicInteger();
+
+    // Read once; the mode cannot change during a run
+    private static final boolean ENABLED = VIRTUAL_FACTORY != null
+            && Boolean.parseBoolean(ConfigReader.getValue("virtual_threads", "false"));
+
+    /**
+     * Returns whether the virtual-thread mode is requested and supported by the running JVM.
+     *
+     * @return true if new threads are virtual
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Creates an unstarted thread: virtual when the mode is enabled, a daemon platform thread otherwise.
+     *
+     * @param name the thread name
+     * @param task the task to run
+     * @return the new thread
+     */
+    public static Thread newThread(String name, Runnable task) {
+        Thread thread;
+        if (isEnabled()) {
+            thread = VIRTUAL_FACTORY.newThread(task);
+        } else {
+            thread = new Thread(task);
+            thread.setDaemon(true);
+        }
+        thread.setName(name);
+        return thread;
+    }
+
+    /**
+     * Creates an executor starting one thread per task: virtual threads when the mode is enabled,
+     * otherwise a cached pool of daemon platform threads.
+     *
+     * @param namePrefix the prefix of the thread names
+     * @return the executor
+     */
+    public static ExecutorService newPerTaskExecutor(String namePrefix) {
+        if (isEnabled()) {
+            try {
+                Method method = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) method.invoke(null, VIRTUAL_FACTORY);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Unable to create a virtual-thread executor: " + e);
+            }
+        }
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + platformThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static ThreadFactory createVirtualFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            // Runtime older than Java 21
+            return null;
+        }
+    }
+}
@@ -17,6 +17,9 @@ package snap.utilities;
 
 import org.openqa.selenium.WebDriver;
 import com.appiancorp.ps.automatedtest.fixture.SitesFixture;
+import snap.network.AssetPolicy;
+import snap.network.NetworkArchive;
+import snap.reports.RunMetrics;
 
 public class WebDriverMgr {
 
@@ -43,11 +46,25 @@ public class WebDriverMgr {
     }
 
     /**
-     * Sets the WebDriver instance for the current thread.
+     * Sets the WebDriver instance for the current thread. Whoever starts the browser counts it
+     * with {@link RunMetrics#sessionCreated()}; this method only tracks it.
      *
      * @param driverParam the WebDriver instance to be associated with the current thread
      */
     public static void setWebDriver(WebDriver driverParam) {
+        if (driverParam != null && driverParam != driver.get()) {
+            SessionWatchdog.register(driverParam);
+        }
+        driver.set(driverParam);
+    }
+
+    /**
+     * Sets the WebDriver instance of the current thread to a session already tracked elsewhere,
+     * without counting it as a new session.
+     *
+     * @param driverParam the WebDriver instance captured from another thread
+     */
+    static void restoreWebDriver(WebDriver driverParam) {
         driver.set(driverParam);
     }
 
@@ -67,6 +84,26 @@ public class WebDriverMgr {
         driver.remove();
     }
 
+    /**
+     * Quits the WebDriver instance associated with the current thread, if any, and removes it.
+     */
+    public static void quitWebDriver() {
+        WebDriver current = driver.get();
+        if (current == null) {
+            return;
+        }
+        SessionWatchdog.release(current);
+        try {
+            AssetPolicy.detach();
+            NetworkArchive.detach();
+            current.quit();
+        } finally {
+            driver.remove();
+            ChromeProfileManager.releaseProfile();
+            RunMetrics.sessionClosed();
+        }
+    }
+
     /**
      * Removes the SitesFixture instance associated with the current thread, if any.
      */
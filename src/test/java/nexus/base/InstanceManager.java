@@ -2,18 +2,38 @@ package nexus.base;
 
 import nexus.pages.HomePage;
 import nexus.pages.LoginPage;
+import snap.dryrun.DryRun;
+import snap.dryrun.DryRunSitesFixture;
+import snap.dryrun.ScriptedWebDriver;
+import snap.listeners.FailedTestRerun;
+import snap.listeners.FlightRecorderDriverListener;
 import snap.listeners.ReportListeners;
+import snap.network.AssetPolicy;
+import snap.network.NetworkArchive;
+import snap.reports.RunMetrics;
+import snap.utilities.ChromeProfileManager;
 import snap.utilities.CommonMethods;
 import snap.utilities.ConfigReader;
+import snap.utilities.DataReader;
+import snap.utilities.DeadlineBudget;
+import snap.utilities.DriverBinaryResolver;
+import snap.utilities.EnvironmentCircuitBreaker;
 import snap.utilities.FolderOperations;
+import snap.utilities.GridRouter;
+import snap.utilities.ParkedSessions;
+import snap.utilities.TabMultiplexer;
 import snap.utilities.WebDriverMgr;
 import com.appiancorp.ps.automatedtest.fixture.SitesFixture;
-import io.github.bonigarcia.wdm.WebDriverManager;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.PageLoadStrategy;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxOptions;
 import org.testng.annotations.BeforeSuite;
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -45,10 +65,24 @@ public class InstanceManager {
      */
     @BeforeSuite(alwaysRun = true)
     public void beforeEverything() throws Exception {
+        // The rerun pass keeps the folders and the parked browsers of the main run
+        if (FailedTestRerun.isRerunning()) {
+            return;
+        }
+
         // Manage folders for reports and screenshots
         FolderOperations.manageFolder(".\\Reports");
         FolderOperations.manageFolder(".\\Screenshots");
 
+        // A dry run never starts a browser, so there is nothing to kill
+        if (DryRun.isEnabled()) {
+            System.out.println("***** Dry run: using the in-memory driver and fixture *****");
+            return;
+        }
+
+        // Find out before the first test whether the Appian environment is answering at all
+        EnvironmentCircuitBreaker.probeAtStart();
+
         // Kill browser instances based on the browser type
         String testBrowser = ConfigReader.getValue("test_browser").toLowerCase();
         if (testBrowser.equals("chrome")) {
@@ -70,18 +104,42 @@ public class InstanceManager {
      *
      * @param testBrowser the name of the browser to use (e.g., "chrome")
      * @throws MalformedURLException if the URL for the RemoteWebDriver is malformed
+     * @throws org.testng.SkipException if the environment circuit breaker is open or the suite
+     *                                   deadline budget is spent
      */
     public void setDriver(String testBrowser) throws MalformedURLException {
-        // Initialize the SitesFixture instance
-        fixture = new SitesFixture();
+        // Skip before starting a browser when the Appian environment is known to be down
+        EnvironmentCircuitBreaker.checkClosed();
+        DeadlineBudget.checkSuite();
+
+        // Initialize the SitesFixture instance, or its in-memory stand-in for a dry run
+        fixture = DryRun.isEnabled() ? new DryRunSitesFixture() : new SitesFixture();
         fixture.setTimeoutSecondsTo(Integer.parseInt(ConfigReader.getValue("appian_timeout")));
         fixture.setAppianVersionTo(ConfigReader.getValue("appian_version"));
         fixture.setAppianLocaleTo(ConfigReader.getValue("appian_locale"));
 
-        switch (testBrowser.toLowerCase()) {
+        // Matrix browsers may carry a "-headless" suffix, for example "firefox-headless"
+        String browserName = testBrowser.toLowerCase();
+        boolean headless = browserName.endsWith("-headless")
+                || ConfigReader.getValue("headless").equalsIgnoreCase("true");
+        browserName = browserName.replace("-headless", "");
+
+        // A rerun continues in the session its failed attempt left logged in, when one is parked
+        WebDriver parked = FailedTestRerun.isRerunning() ? ParkedSessions.take(testBrowser) : null;
+
+        switch (parked != null ? "parked" : DryRun.isEnabled() ? "dry_run" : browserName) {
+            case "parked": {
+                driver = parked;
+                System.out.println("***** Reusing the parked " + browserName + " session *****");
+                break;
+            }
+            case "dry_run": {
+                driver = new ScriptedWebDriver(DataReader.getValue("HomePageTitle"));
+                break;
+            }
             case "chrome": {
                 ChromeOptions chromeOptions = new ChromeOptions();
-                if (ConfigReader.getValue("headless").equalsIgnoreCase("true")) {
+                if (headless) {
                     chromeOptions.addArguments("--headless");
                     chromeOptions.addArguments("window-size=1920,1080");
                 } else {
@@ -89,17 +147,94 @@ public class InstanceManager {
                 }
                 chromeOptions.addArguments("force-device-scale-factor=" + ConfigReader.getValue("browser_zoom"));
                 chromeOptions.addArguments("high-dpi-support=" + ConfigReader.getValue("browser_zoom"));
+                // Return from navigation as soon as the DOM is usable; page objects wait for readiness
+                chromeOptions.setPageLoadStrategy(PageLoadStrategy.fromString(
+                        ConfigReader.getValue("page_load_strategy", "normal").toLowerCase()));
+                if (GridRouter.isEnabled()) {
+                    // Remote nodes manage their own browser binaries and profiles
+                    driver = GridRouter.createSession(chromeOptions);
+                    break;
+                }
+                // Run the flow in a tab of a shared browser when multiplexing
+                if (TabMultiplexer.isEnabled()) {
+                    TabMultiplexer.applyTo(chromeOptions);
+                    DriverBinaryResolver.resolveChromeDriver();
+                    driver = TabMultiplexer.openTab(testBrowser.toLowerCase(), () -> new ChromeDriver(chromeOptions));
+                    break;
+                }
+                // Start from a clone of the warmed profile template when requested
+                if (ChromeProfileManager.isEnabled()) {
+                    ChromeProfileManager.applyTo(chromeOptions);
+                }
+                DriverBinaryResolver.resolveChromeDriver();
                 driver = new ChromeDriver(chromeOptions);
                 break;
             }
+            case "edge": {
+                EdgeOptions edgeOptions = new EdgeOptions();
+                if (headless) {
+                    edgeOptions.addArguments("--headless");
+                    edgeOptions.addArguments("window-size=1920,1080");
+                } else {
+                    edgeOptions.addArguments("start-maximized");
+                }
+                edgeOptions.addArguments("force-device-scale-factor=" + ConfigReader.getValue("browser_zoom"));
+                edgeOptions.addArguments("high-dpi-support=" + ConfigReader.getValue("browser_zoom"));
+                edgeOptions.setPageLoadStrategy(PageLoadStrategy.fromString(
+                        ConfigReader.getValue("page_load_strategy", "normal").toLowerCase()));
+                if (GridRouter.isEnabled()) {
+                    driver = GridRouter.createSession(edgeOptions);
+                } else if (TabMultiplexer.isEnabled()) {
+                    TabMultiplexer.applyTo(edgeOptions);
+                    driver = TabMultiplexer.openTab(testBrowser.toLowerCase(), () -> new EdgeDriver(edgeOptions));
+                } else {
+                    driver = new EdgeDriver(edgeOptions);
+                }
+                break;
+            }
+            case "firefox": {
+                FirefoxOptions firefoxOptions = new FirefoxOptions();
+                if (headless) {
+                    firefoxOptions.addArguments("-headless");
+                    firefoxOptions.addArguments("--width=1920", "--height=1080");
+                }
+                firefoxOptions.addPreference("layout.css.devPixelsPerPx", ConfigReader.getValue("browser_zoom"));
+                firefoxOptions.setPageLoadStrategy(PageLoadStrategy.fromString(
+                        ConfigReader.getValue("page_load_strategy", "normal").toLowerCase()));
+                driver = GridRouter.isEnabled() ? GridRouter.createSession(firefoxOptions)
+                        : new FirefoxDriver(firefoxOptions);
+                if (!headless) {
+                    driver.manage().window().maximize();
+                }
+                break;
+            }
             default: {
-                WebDriverManager.chromedriver().setup();
+                DriverBinaryResolver.resolveChromeDriver();
                 driver = new ChromeDriver();
                 System.out.println("***** Browser is Chrome *****");
                 break;
             }
         }
 
+        // A parked session was counted when its browser started
+        if (parked == null) {
+            RunMetrics.sessionCreated();
+        }
+
+        // The tabs of a shared browser share its DevTools connection, so traffic capture is per browser only
+        if (!TabMultiplexer.isTab(driver)) {
+            // Record or replay the Appian traffic of the session when requested
+            NetworkArchive.attach(driver);
+
+            // Capture traffic and apply the asset policy of each test when configured
+            AssetPolicy.attach(driver);
+        }
+
+        // Record every browser round trip as a Flight Recorder event when requested
+        if (parked == null && ConfigReader.getValue("jfr_webdriver_events", "false").equalsIgnoreCase("true")) {
+            driver = FlightRecorderDriverListener.decorate(driver);
+        }
+
         // Set WebDriver and SitesFixture in the WebDriverMgr
         WebDriverMgr.setWebDriver(driver);
         WebDriverMgr.setFixture(fixture);
@@ -110,8 +245,25 @@ public class InstanceManager {
         loginPage = new LoginPage(WebDriverMgr.getDriver(), WebDriverMgr.getFixture());
         homePage = new HomePage(WebDriverMgr.getDriver(), WebDriverMgr.getFixture());
 
-        // Clear cookies
-        WebDriverMgr.getDriver().manage().deleteAllCookies();
+        // Clear cookies, except in a parked session whose login is reused
+        if (parked == null) {
+            WebDriverMgr.getDriver().manage().deleteAllCookies();
+        }
+    }
+
+    /**
+     * Logs out and quits the session of the current thread, or parks it for the rerun of a failed
+     * test. Does nothing when {@link #setDriver(String)} did not start a session on this thread,
+     * for example when the circuit breaker or the suite deadline budget skipped the test. The
+     * session is taken from {@link WebDriverMgr}, not from the page-object fields, which another
+     * test method of this instance may have replaced in the meantime.
+     */
+    public void closeSession() {
+        WebDriver current = WebDriverMgr.getDriver();
+        if (current == null) {
+            return;
+        }
+        new CommonMethods(current, WebDriverMgr.getFixture()).afterTest();
     }
 
     /**
@@ -4,49 +4,81 @@ import com.appiancorp.ps.automatedtest.fixture.SitesFixture;
 import com.aventstack.extentreports.Status;
 
 import snap.listeners.ReportListeners;
+import snap.utilities.ActionTimer;
+import snap.utilities.DomSnapshot;
+import snap.utilities.PageReadiness;
 
+import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.PageFactory;
 
-public class HomePage {
+public class HomePage implements PageReadiness {
 
     public WebDriver driver;
     public SitesFixture fixture;
+    private final HomePageElements elements;
 
-    @FindBy(xpath = "//*[text()='What do you need help with?']")
-    WebElement homeText;
+    private static final String HOME_TEXT_XPATH = "//*[text()='What do you need help with?']";
 
-    @FindBy(xpath = "//*[text()='Id']/ancestor::th[1]")
-    WebElement idColumn;
+    // Locator declarations, accessed through the generated HomePageElements; never instantiated
+    private static final class Locators {
+        @FindBy(xpath = HOME_TEXT_XPATH)
+        WebElement homeText;
 
-    @FindBy(xpath = "//*[text()='Refresh']/ancestor::button[1]")
-    WebElement refreshTable;
-    
+        @FindBy(xpath = "//*[text()='Id']/ancestor::th[1]")
+        WebElement idColumn;
+
+        @FindBy(xpath = "//*[text()='Refresh']/ancestor::button[1]")
+        WebElement refreshTable;
+    }
 
     public HomePage(WebDriver driver, SitesFixture fixture) {
         this.driver = driver;
         this.fixture = fixture;
-        PageFactory.initElements(driver, this);
+        this.elements = new HomePageElements(driver);
+    }
+
+    /**
+     * The home page is ready once its help text is rendered.
+     *
+     * @return true if the home text is displayed
+     */
+    @Override
+    public boolean isReady() {
+        return elements.homeText().isDisplayed();
     }
 
+    /**
+     * Verifies that the home page is shown after login. In snapshot mode a page that is already
+     * rendered is confirmed with one snapshot instead of polling the home text.
+     */
     public void validateLogin(){
-        if(homeText.isDisplayed()){
-            ReportListeners.logStep("Login successful, HomePage Text verified.");
-        }else{
-            ReportListeners.logStep(Status.FAIL,"Login unsuccessful, HomePage Text not verified.");
+        try (ActionTimer.Timing timing = ActionTimer.time("HomePage.validateLogin", null)) {
+            boolean shown = DomSnapshot.isEnabled()
+                    && DomSnapshot.current(driver).isDisplayed(By.xpath(HOME_TEXT_XPATH));
+            if(shown || PageReadiness.awaitReady(driver, this)){
+                ReportListeners.logStep("Login successful, HomePage Text verified.");
+            }else{
+                ReportListeners.logStep(Status.FAIL,"Login unsuccessful, HomePage Text not verified.");
+            }
         }
     }
 
     public void sortById(){
-        idColumn.click();
-        ReportListeners.logStep("Sorted by ID");
+        try (ActionTimer.Timing timing = ActionTimer.time("HomePage.sortById", null)) {
+            DomSnapshot.invalidate();
+            elements.idColumn().click();
+            ReportListeners.logStep("Sorted by ID");
+        }
     }
 
     public void refreshTable(){
-        refreshTable.click();
-        ReportListeners.logStep("Refresh Table Icon Clicked");
+        try (ActionTimer.Timing timing = ActionTimer.time("HomePage.refreshTable", null)) {
+            DomSnapshot.invalidate();
+            elements.refreshTable().click();
+            ReportListeners.logStep("Refresh Table Icon Clicked");
+        }
     }
 }
   
\ No newline at end of file
@@ -1,35 +1,46 @@
 package nexus.pages;
 
+import snap.listeners.FailedTestRerun;
 import snap.listeners.ReportListeners;
+import snap.utilities.ActionTimer;
 import snap.utilities.ConfigReader;
 import snap.utilities.DataReader;
+import snap.utilities.DomSnapshot;
+import snap.utilities.EnvironmentCircuitBreaker;
+import snap.utilities.PageReadiness;
 import com.appiancorp.ps.automatedtest.fixture.SitesFixture;
+import com.aventstack.extentreports.Status;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoAlertPresentException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
-import org.openqa.selenium.support.PageFactory;
 import org.testng.Assert;
 
 /**
  * The LoginPage class represents the login page of the application.
  * It provides methods to perform login operations and verify successful login.
  */
-public class LoginPage {
+public class LoginPage implements PageReadiness {
 
     private WebDriver driver;
     private SitesFixture fixture;
+    private final LoginPageElements elements;
 
-    @FindBy(id = "un")
-    private WebElement username;
+    // Locator declarations, accessed through the generated LoginPageElements; never instantiated
+    private static final class Locators {
+        @FindBy(id = "un")
+        WebElement username;
 
-    @FindBy(id = "pw")
-    private WebElement password;
+        @FindBy(id = "pw")
+        WebElement password;
 
-    @FindBy(xpath = "//*[@value='Sign In']/parent::div")
-    private WebElement btnLogin;
+        @FindBy(xpath = "//*[@value='Sign In']/parent::div")
+        WebElement btnLogin;
 
-    @FindBy(xpath = "//a[@id='forgotPasswordLink']")
-    private WebElement forgotPasswordLink;
+        @FindBy(xpath = "//a[@id='forgotPasswordLink']")
+        WebElement forgotPasswordLink;
+    }
 
     /**
      * Constructor to initialize the LoginPage object with WebDriver and SitesFixture.
@@ -40,12 +51,24 @@ public class LoginPage {
     public LoginPage(WebDriver driver, SitesFixture fixture) {
         this.driver = driver;
         this.fixture = fixture;
-        PageFactory.initElements(driver, this);
+        this.elements = new LoginPageElements(driver);
+    }
+
+    /**
+     * The login page is ready once the username and password fields accept input.
+     *
+     * @return true if both credential fields are displayed and enabled
+     */
+    @Override
+    public boolean isReady() {
+        return elements.username().isDisplayed() && elements.username().isEnabled()
+                && elements.password().isDisplayed() && elements.password().isEnabled();
     }
 
     /**
      * Performs the login operation by navigating to the specified URL and entering
-     * the provided username and password.
+     * the provided username and password. Nothing is entered if the login form does not become
+     * ready in time.
      *
      * @param strURL      the URL to navigate to
      * @param strUsername the username to enter in the login form
@@ -53,19 +76,25 @@ public class LoginPage {
      * @return a HomePage object if login is successful, null otherwise
      */
     public HomePage performLogin(String strURL, String strUsername, String strPassword) {
-        try {
+        try (ActionTimer.Timing timing = ActionTimer.time("LoginPage.performLogin", null)) {
+            DomSnapshot.invalidate();
             driver.get(strURL);
-            username.clear();
-            username.sendKeys(strUsername);
+            if (!PageReadiness.awaitReady(driver, this)) {
+                ReportListeners.logStep(Status.FAIL, "Login page not ready, credentials not entered.");
+                System.out.println("Login page not ready, credentials not entered.");
+                return null;
+            }
+            elements.username().clear();
+            elements.username().sendKeys(strUsername);
             ReportListeners.logStep("Entered text '" + strUsername + "' in the username field.");
             System.out.println("Entered text '" + strUsername + "' in the username field.");
 
-            password.clear();
-            password.sendKeys(strPassword);
+            elements.password().clear();
+            elements.password().sendKeys(strPassword);
             ReportListeners.logStep("Entered text '" + strPassword + "' in the password field.");
             System.out.println("Entered text '" + strPassword + "' in the password field.");
 
-            btnLogin.click();
+            elements.btnLogin().click();
             ReportListeners.logStep("Clicked on Login button.");
             System.out.println("Clicked on Login button.");
 
@@ -78,29 +107,58 @@ public class LoginPage {
 
     /**
      * Performs login into an Appian application using credentials from the configuration.
-     *
-     * @param application the name of the application to log into
+     * Infrastructure failures (timeouts, refused connections, 5xx responses) are counted by the
+     * environment circuit breaker and rethrown, so the test fails at once instead of waiting out
+     * the following steps. During the rerun of a failed test, a reused session that is still
+     * logged in skips the login.
      */
     public void performAppianLogin() {
-        try {
+        try (ActionTimer.Timing timing = ActionTimer.time("LoginPage.performAppianLogin", null)) {
+            DomSnapshot.invalidate();
             String url = ConfigReader.getValue("url");
             String username = DataReader.getValue("USERNAME");
             String password = DataReader.getValue("PASSWORD");
+            if (FailedTestRerun.isRerunning() && isSignedIn(url)) {
+                ReportListeners.logStep("Reused the logged-in Appian session");
+                return;
+            }
             fixture.loginIntoWithUsernameAndPassword(url, username, password);
+            EnvironmentCircuitBreaker.recordSuccess();
             ReportListeners.logStep("Performed Appian login");
         } catch (Exception e) {
             ReportListeners.logStep("Error occurred while performing Appian login: " + e);
             System.out.println("Error occurred while performing login: " + e);
+            if (EnvironmentCircuitBreaker.recordFailure("performAppianLogin", e) && e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
         }
     }
 
+    /**
+     * Opens the site and checks whether the session is still logged in, which is the case when
+     * no login form is shown. A leave-page prompt left by the previous test is accepted.
+     *
+     * @param url the site URL
+     * @return true if the site opened without asking for credentials
+     */
+    private boolean isSignedIn(String url) {
+        driver.get(url);
+        try {
+            driver.switchTo().alert().accept();
+        } catch (NoAlertPresentException e) {
+            // The previous test left no unsaved changes
+        }
+        fixture.waitForProgressBar();
+        return driver.findElements(By.id("un")).isEmpty();
+    }
+
     /**
      * Verifies if the login was successful by checking the title of the HomePage.
      *
      * @param homePage the HomePage object representing the page after login
      */
     public void verifySuccessfulLogin(HomePage homePage) {
-        try {
+        try (ActionTimer.Timing timing = ActionTimer.time("LoginPage.verifySuccessfulLogin", null)) {
             fixture.waitForProgressBar();
             Assert.assertEquals(driver.getTitle(), DataReader.getValue("HomePageTitle"));
             ReportListeners.logStep("Login successful, HomePage title verified.");
@@ -1,6 +1,8 @@
 package nexus.testcases.fill_form;
 
 import nexus.base.InstanceManager;
+import snap.data.DataFile;
+import snap.data.StreamingDataProvider;
 import snap.utilities.WebDriverMgr;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -9,6 +11,7 @@ import org.testng.annotations.*;
 import com.thedeanda.lorem.LoremIpsum;
 
 import java.net.MalformedURLException;
+import java.util.Map;
 
 public class FillFormTest extends InstanceManager {
 
@@ -21,8 +24,10 @@ public class FillFormTest extends InstanceManager {
         WebDriverMgr.setWebDriver(driver);
     }
 
-    @Test(priority = 2, description = "Fill Form Validation", groups = {"fillform"})
-    public void TC_FillFormTest(){
+    @Test(priority = 2, description = "Fill Form Validation", groups = {"fillform"},
+            dataProvider = "dataFile", dataProviderClass = StreamingDataProvider.class)
+    @DataFile("fill_form_users.csv")
+    public void TC_FillFormTest(Map<String, String> user){
         System.out.println("Test initialized with web-driver");
         loginPage.performAppianLogin();
         loginPage.verifySuccessfulLogin(homePage);
@@ -36,20 +41,22 @@ public class FillFormTest extends InstanceManager {
         common.populateFieldNameWithValue("Address", LoremIpsum.getInstance().getCity());
         common.populateFieldNameWithValue("Email", LoremIpsum.getInstance().getEmail());
         common.populateFieldNameWithValue("Phone", LoremIpsum.getInstance().getPhone());
-        common.populateFieldNameWithValue("Gender", "Male");
-        common.populateFieldNameWithValue("Interests", "Manual Testing");
-        common.populateFieldNameWithValue("Languages", "English");
-        common.populateFieldNameWithValue("Skill", "API");
-        common.populateFieldNameWithValue("Country", "India");
+        common.populateFieldNameWithValue("Gender", user.get("Gender"));
+        common.populateFieldNameWithValue("Interests", user.get("Interests"));
+        common.populateFieldNameWithValue("Languages", user.get("Languages"));
+        common.populateFieldNameWithValue("Skill", user.get("Skill"));
+        common.populateFieldNameWithValue("Country", user.get("Country"));
         common.clickOnButton("SUBMIT");
         homePage.refreshTable();
         homePage.sortById();
-        common.verifyTextIsPresent(firstName);
-        common.verifyTextIsPresent(lastName);
+        common.verify()
+                .textIsPresent(firstName)
+                .textIsPresent(lastName)
+                .assertAll();
     }
     
     @AfterMethod(alwaysRun = true)
     public void endTest() {
-        common.afterTest();
+        closeSession();
     }
 }
\ No newline at end of file
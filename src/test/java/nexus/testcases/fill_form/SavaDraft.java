@@ -40,6 +40,6 @@ public class SavaDraft extends InstanceManager {
     }
     @AfterMethod(alwaysRun = true)
     public void endTest() {
-        common.afterTest();
+        closeSession();
     }
 }
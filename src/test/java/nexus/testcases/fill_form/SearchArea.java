@@ -30,6 +30,6 @@ public class SearchArea extends InstanceManager {
     }
     @AfterMethod(alwaysRun = true)
     public void endTest() {
-        common.afterTest();
+        closeSession();
     }
 }
@@ -28,6 +28,6 @@ public class LoginTest extends InstanceManager {
     
     @AfterMethod(alwaysRun = true)
     public void endTest() {
-        common.afterTest();
+        closeSession();
     }
 }
\ No newline at end of file
@@ -0,0 +1,54 @@
+package snap.data;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class StreamingDataProviderTest {
+
+    @DataProvider
+    public Object[][] csvFiles() {
+        return new Object[][] {
+                { "name,email\nAda,ada@example.com\n",
+                        rows(row("name", "email"), row("Ada", "ada@example.com")) },
+                { "\uFEFFname,email\r\nAda,ada@example.com\r\n",
+                        rows(row("name", "email"), row("Ada", "ada@example.com")) },
+                { "name\rAda\rGrace",
+                        rows(row("name"), row("Ada"), row("Grace")) },
+                { "name,city\n\"Lovelace, Ada\",London\n",
+                        rows(row("name", "city"), row("Lovelace, Ada", "London")) },
+                { "quote\n\"She said \"\"hi\"\"\"\n",
+                        rows(row("quote"), row("She said \"hi\"")) },
+                { "address,zip\n\"12 Main St\r\nFlat 3\",90210\n",
+                        rows(row("address", "zip"), row("12 Main St\r\nFlat 3", "90210")) },
+                { "a,b,c\n,,\n1,,3",
+                        rows(row("a", "b", "c"), row("", "", ""), row("1", "", "3")) },
+                { "a\n\nb\n",
+                        rows(row("a"), row(""), row("b")) },
+                { "", rows() },
+        };
+    }
+
+    @Test(dataProvider = "csvFiles")
+    public void parsesCsv(String csv, List<List<String>> expected) throws IOException {
+        List<List<String>> parsed = new ArrayList<>();
+        StreamingDataProvider.parseCsv(new BufferedReader(new StringReader(csv)), parsed::add);
+        assertEquals(parsed, expected);
+    }
+
+    @SafeVarargs
+    private static List<List<String>> rows(List<String>... rows) {
+        return Arrays.asList(rows);
+    }
+
+    private static List<String> row(String... cells) {
+        return Arrays.asList(cells);
+    }
+}
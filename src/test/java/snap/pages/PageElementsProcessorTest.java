@@ -0,0 +1,51 @@
+package snap.pages;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class PageElementsProcessorTest {
+
+    @DataProvider
+    public Object[][] validLocators() {
+        return new Object[][] {
+                { "xpath", "//*[text()='What do you need help with?']" },
+                { "xpath", "//*[@value='Sign In']/parent::div" },
+                { "id", "un" },
+                { "className", "appian-button" },
+                { "tagName", "my-widget" },
+                { "cssSelector", "div[data-label='a]b'] > span:not(.hidden)" },
+                { "linkText", "Forgot password?" },
+        };
+    }
+
+    @DataProvider
+    public Object[][] invalidLocators() {
+        return new Object[][] {
+                { "id", "   " },
+                { "xpath", "//*[text()='Id'" },
+                { "xpath", "//div[" },
+                { "className", "appian button" },
+                { "className", "  appian-button  " },
+                { "className", "appian\tbutton" },
+                { "tagName", "1div" },
+                { "tagName", "div > span" },
+                { "cssSelector", "div[data-label='x'" },
+                { "cssSelector", "div]" },
+                { "cssSelector", "li:nth-child(2" },
+                { "cssSelector", "input[value='open]" },
+        };
+    }
+
+    @Test(dataProvider = "validLocators")
+    public void acceptsValidLocator(String strategy, String value) {
+        assertNull(PageElementsProcessor.validate(strategy, value));
+    }
+
+    @Test(dataProvider = "invalidLocators")
+    public void reportsInvalidLocator(String strategy, String value) {
+        assertNotNull(PageElementsProcessor.validate(strategy, value), strategy + " '" + value + "'");
+    }
+}
@@ -0,0 +1,55 @@
+package snap.utilities;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class DomSnapshotTest {
+
+    @DataProvider
+    public Object[][] translatableSelectors() {
+        return new Object[][] {
+                { "button", "//button" },
+                { "*", "//*" },
+                { "DIV#Main", "//div[@id='Main']" },
+                { "#submit", "//*[@id='submit']" },
+                { "div.card.active", "//div[contains(concat(' ', normalize-space(@class), ' '), ' card ')]"
+                        + "[contains(concat(' ', normalize-space(@class), ' '), ' active ')]" },
+                { "[disabled]", "//*[@disabled]" },
+                { "input[name='email']", "//input[@name='email']" },
+                { "a[href^=\"https\"]", "//a[starts-with(@href, 'https')]" },
+                { "img[src$='.png']", "//img[substring(@src, string-length(@src) - 3)='.png']" },
+                { "span[title~=note]", "//span[contains(concat(' ', normalize-space(@title), ' '), ' note ')]" },
+                { "div[data-x*=abc]", "//div[contains(@data-x, 'abc')]" },
+                { "div[title=\"it's\"]", "//div[@title=\"it's\"]" },
+                { "form > input", "//form/input" },
+                { "form>input", "//form/input" },
+                { "ul li > a", "//ul//li/a" },
+        };
+    }
+
+    @DataProvider
+    public Object[][] unsupportedSelectors() {
+        return new Object[][] {
+                { "> div" },
+                { "div >" },
+                { "div > > a" },
+                { "a:hover" },
+                { "div + p" },
+                { "li ~ li" },
+                { "" },
+        };
+    }
+
+    @Test(dataProvider = "translatableSelectors")
+    public void translatesSelector(String css, String xpath) {
+        assertEquals(DomSnapshot.cssToXPath(css), xpath);
+    }
+
+    @Test(dataProvider = "unsupportedSelectors")
+    public void rejectsUnsupportedSelector(String css) {
+        assertNull(DomSnapshot.cssToXPath(css));
+    }
+}
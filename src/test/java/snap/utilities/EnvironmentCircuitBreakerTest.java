@@ -0,0 +1,54 @@
+package snap.utilities;
+
+import com.appiancorp.ps.automatedtest.exception.GenericTestException;
+import com.appiancorp.ps.automatedtest.exception.ObjectNotFoundTestException;
+import com.appiancorp.ps.automatedtest.exception.TimeoutStopTestException;
+import com.appiancorp.ps.automatedtest.exception.TimeoutTestException;
+import com.appiancorp.ps.automatedtest.exception.UnreachableBrowserStopTestException;
+import com.appiancorp.ps.automatedtest.exception.UnreachableBrowserTestException;
+import java.net.ConnectException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class EnvironmentCircuitBreakerTest {
+
+    @DataProvider
+    public Object[][] infrastructureFailures() {
+        // Messages as built by the fixture's ExceptionBuilder, which drops the original exception
+        return new Object[][] {
+                { new TimeoutTestException("Timeout period reached: ", "loginIntoWithUsernameAndPassword") },
+                { new TimeoutStopTestException("Timeout period reached: ", "loginIntoWithUsernameAndPassword") },
+                { new UnreachableBrowserTestException("Browser is unreachable: ", "loginIntoWithUsernameAndPassword") },
+                { new UnreachableBrowserStopTestException("Browser is unreachable: ", "login") },
+                { new TimeoutException("Expected condition failed") },
+                { new RuntimeException("login", new ConnectException("Connection refused")) },
+                { new WebDriverException("unknown error: net::ERR_CONNECTION_REFUSED") },
+                { new WebDriverException("Server returned 503 Service Unavailable") },
+        };
+    }
+
+    @DataProvider
+    public Object[][] applicationFailures() {
+        return new Object[][] {
+                { new GenericTestException("loginIntoWithUsernameAndPassword", "https://site", "nexus_user") },
+                { new ObjectNotFoundTestException("Object not found: ", "Username") },
+                { new AssertionError("expected [Home - QA Intranet] but found [Sign In]") },
+                { new IllegalStateException("unexpected") },
+        };
+    }
+
+    @Test(dataProvider = "infrastructureFailures")
+    public void countsInfrastructureFailures(Throwable failure) {
+        assertTrue(EnvironmentCircuitBreaker.isInfrastructureFailure(failure), failure.toString());
+    }
+
+    @Test(dataProvider = "applicationFailures")
+    public void ignoresApplicationFailures(Throwable failure) {
+        assertFalse(EnvironmentCircuitBreaker.isInfrastructureFailure(failure), failure.toString());
+    }
+}
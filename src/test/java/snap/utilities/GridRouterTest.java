@@ -0,0 +1,47 @@
+package snap.utilities;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import org.openqa.selenium.InvalidArgumentException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class GridRouterTest {
+
+    @DataProvider
+    public Object[][] refusals() {
+        return new Object[][] {
+                { new SessionNotCreatedException("Could not start a new session. New session request timed out") },
+                { new SessionNotCreatedException("Could not start a new session.",
+                        new UncheckedIOException(new ConnectException("Connection refused"))) },
+                { new UnreachableBrowserException("Could not reach the node") },
+                { new WebDriverException("Server returned 503 Service Unavailable") },
+        };
+    }
+
+    @DataProvider
+    public Object[][] deterministicFailures() {
+        return new Object[][] {
+                { new SessionNotCreatedException(
+                        "Could not start a new session. No nodes support the capabilities in the request") },
+                { new InvalidArgumentException("invalid argument: unrecognized capability: browserVersio") },
+                { new WebDriverException("unknown error: cannot find Chrome binary") },
+        };
+    }
+
+    @Test(dataProvider = "refusals")
+    public void triesAnotherNodeOnRefusal(WebDriverException failure) {
+        assertTrue(GridRouter.isRefusal(failure), failure.toString());
+    }
+
+    @Test(dataProvider = "deterministicFailures")
+    public void failsFastOnDeterministicFailures(WebDriverException failure) {
+        assertFalse(GridRouter.isRefusal(failure), failure.toString());
+    }
+}
@@ -0,0 +1,80 @@
+package snap.utilities;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openqa.selenium.By;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class SoftVerifierTest {
+
+    // A labelled field, a visible status text and a hidden element, as serialized by the snapshot script
+    private static final String PAGE = "[\"body\", {}, 1, [0, 0, 1280, 720],"
+            + " [\"label\", {\"for\": \"first\"}, 1, [0, 0, 80, 20], \"First Name\"],"
+            + " [\"input\", {\"id\": \"first\", \"value\": \"Ada\"}, 1, [90, 0, 200, 20]],"
+            + " [\"div\", {\"id\": \"status\"}, 1, [0, 40, 200, 20], \"Saved\"],"
+            + " [\"div\", {\"id\": \"secret\"}, 0, [0, 0, 0, 0], \"Hidden\"]]";
+
+    private static final String EMPTY_PAGE = "[\"body\", {}, 1, [0, 0, 1280, 720]]";
+
+    private static SoftVerifier verifierFor(String json) {
+        return new SoftVerifier(null, driver -> DomSnapshot.parse(driver, json), Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void passesWhenEveryExpectationIsMet() {
+        verifierFor(PAGE)
+                .textIsPresent("Saved")
+                .textIsAbsent("Hidden")
+                .textIsAbsent("Error")
+                .elementIsDisplayed(By.id("status"))
+                .fieldHasValue("First Name", "Ada")
+                .assertAll();
+    }
+
+    @Test
+    public void listsEveryUnmetExpectation() {
+        AssertionError error = expectThrows(AssertionError.class, () -> verifierFor(PAGE)
+                .textIsPresent("Saved")
+                .textIsPresent("Hidden")
+                .elementIsDisplayed(By.id("secret"))
+                .fieldHasValue("First Name", "Bob")
+                .assertAll());
+        assertTrue(error.getMessage().startsWith("3 of 4 expectations failed"), error.getMessage());
+        assertTrue(error.getMessage().contains("text 'Hidden' is present"), error.getMessage());
+        assertTrue(error.getMessage().contains("By.id: secret is displayed"), error.getMessage());
+        assertTrue(error.getMessage().contains("field 'First Name' has value 'Bob'"), error.getMessage());
+    }
+
+    @Test
+    public void retakesTheSnapshotUntilTheContentAppears() {
+        AtomicInteger captures = new AtomicInteger();
+        new SoftVerifier(null, driver -> DomSnapshot.parse(driver, captures.incrementAndGet() < 2 ? EMPTY_PAGE : PAGE),
+                Duration.ofSeconds(5))
+                .textIsPresent("Saved")
+                .assertAll();
+        assertEquals(captures.get(), 2);
+    }
+
+    @Test
+    public void treatsEveryExpectationAsMetOnAScriptedSnapshot() {
+        verifierFor(null)
+                .textIsPresent("Saved")
+                .textIsAbsent("Saved")
+                .elementIsDisplayed(By.id("missing"))
+                .fieldHasValue("First Name", "Ada")
+                .assertAll();
+    }
+
+    @Test
+    public void scriptedSnapshotHasNoContent() {
+        DomSnapshot snapshot = DomSnapshot.parse(null, null);
+        assertTrue(snapshot.isScripted());
+        assertFalse(snapshot.hasText("anything"));
+        assertFalse(snapshot.isDisplayed(By.id("anything")));
+    }
+}
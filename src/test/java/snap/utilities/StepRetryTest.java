@@ -0,0 +1,154 @@
+package snap.utilities;
+
+import com.appiancorp.ps.automatedtest.exception.GenericTestException;
+import com.appiancorp.ps.automatedtest.exception.IllegalArgumentTestException;
+import com.appiancorp.ps.automatedtest.exception.ObjectNotFoundTestException;
+import com.appiancorp.ps.automatedtest.exception.StaleElementStopTestException;
+import com.appiancorp.ps.automatedtest.exception.StaleElementTestException;
+import com.appiancorp.ps.automatedtest.exception.TimeoutStopTestException;
+import com.appiancorp.ps.automatedtest.exception.TimeoutTestException;
+import com.appiancorp.ps.automatedtest.exception.UnreachableBrowserTestException;
+import com.appiancorp.ps.automatedtest.exception.WaitForProgressBarTestException;
+import com.appiancorp.ps.automatedtest.exception.WaitForWorkingTestException;
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.model.Log;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import snap.listeners.ReportListeners;
+import snap.reports.RunMetrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class StepRetryTest {
+
+    private final AtomicInteger alertsAccepted = new AtomicInteger();
+    private ExtentTest report;
+
+    @BeforeMethod
+    public void startTest() {
+        alertsAccepted.set(0);
+        report = new ExtentReports().createTest("StepRetryTest");
+        ReportListeners.setExtentTest(report);
+        WebDriverMgr.restoreWebDriver(driverWithOpenAlert());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void endTest() {
+        ReportListeners.setExtentTest(null);
+        WebDriverMgr.removeWebDriver();
+    }
+
+    // Only switchTo().alert().accept() is answered, which is all the recovery needs from the driver
+    private WebDriver driverWithOpenAlert() {
+        Alert alert = (Alert) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Alert.class},
+                (proxy, method, args) -> "accept".equals(method.getName()) ? alertsAccepted.incrementAndGet() : null);
+        WebDriver.TargetLocator locator = (WebDriver.TargetLocator) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] {WebDriver.TargetLocator.class},
+                (proxy, method, args) -> "alert".equals(method.getName()) ? alert : null);
+        return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {WebDriver.class},
+                (proxy, method, args) -> "switchTo".equals(method.getName()) ? locator : null);
+    }
+
+    private static long stepRetries() {
+        Matcher matcher = Pattern.compile("(?m)^snap_step_retries_total (\\d+)$").matcher(RunMetrics.render());
+        assertTrue(matcher.find(), "snap_step_retries_total is not rendered");
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private List<String> loggedSteps(Status status) {
+        return report.getModel().getLogs().stream().filter(log -> log.getStatus() == status)
+                .map(Log::getDetails).collect(Collectors.toList());
+    }
+
+    @Test
+    public void retriesATransientFailureUntilTheStepSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+        long retriesBefore = stepRetries();
+
+        StepRetry.run("clickOnButton", "SUBMIT", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new StaleElementReferenceException("stale element reference");
+            }
+        });
+
+        assertEquals(attempts.get(), 2);
+        assertEquals(stepRetries() - retriesBefore, 1);
+        assertEquals(alertsAccepted.get(), 1, "the open alert is accepted before the retry");
+        List<String> warnings = loggedSteps(Status.WARNING);
+        assertEquals(warnings.size(), 1, warnings.toString());
+        assertTrue(warnings.get(0).startsWith("Step clickOnButton [SUBMIT] failed with transient "
+                + "StaleElementReferenceException, retrying (1 of 2)"), warnings.get(0));
+        assertTrue(loggedSteps(Status.INFO).contains("Step clickOnButton [SUBMIT] succeeded on attempt 2."));
+    }
+
+    @Test
+    public void throwsADeterministicFailureWithoutRetrying() {
+        AtomicInteger attempts = new AtomicInteger();
+        long retriesBefore = stepRetries();
+
+        expectThrows(IllegalStateException.class, () -> StepRetry.run("clickOnButton", "SUBMIT", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("unexpected");
+        }));
+
+        assertEquals(attempts.get(), 1);
+        assertEquals(stepRetries() - retriesBefore, 0);
+        assertEquals(alertsAccepted.get(), 0);
+        assertTrue(loggedSteps(Status.WARNING).isEmpty());
+    }
+
+    @DataProvider
+    public Object[][] transientFailures() {
+        return new Object[][] {
+                { new TimeoutTestException("Timeout period reached: ", "clickOnButton", "SUBMIT") },
+                { new TimeoutStopTestException("Timeout period reached: ", "clickOnButton", "SUBMIT") },
+                { new StaleElementTestException("Element is no longer attached to the DOM: ", "SUBMIT") },
+                { new StaleElementStopTestException("Element is no longer attached to the DOM: ", "SUBMIT") },
+                { new ObjectNotFoundTestException("Object not found: ", "First Name") },
+                { new WaitForProgressBarTestException("Progress Bar remained visible") },
+                { new WaitForWorkingTestException("Working remained visible") },
+                { new StaleElementReferenceException("stale element reference") },
+                { new RuntimeException("wrapped", new StaleElementReferenceException("stale")) },
+                { new RuntimeException("The Progress Bar did not disappear") },
+        };
+    }
+
+    @DataProvider
+    public Object[][] deterministicFailures() {
+        return new Object[][] {
+                { new GenericTestException("populateFieldWithValue", "First Name") },
+                { new IllegalArgumentTestException("Invalid field type") },
+                { new UnreachableBrowserTestException("Browser is unreachable") },
+                { new NoSuchSessionException("session deleted") },
+                { new AssertionError("Button Enabled") },
+                { new IllegalStateException("unexpected") },
+        };
+    }
+
+    @Test(dataProvider = "transientFailures")
+    public void retriesTransientFailures(Throwable failure) {
+        assertTrue(StepRetry.isTransient(failure), failure.getClass().getSimpleName());
+    }
+
+    @Test(dataProvider = "deterministicFailures")
+    public void failsFastOnDeterministicFailures(Throwable failure) {
+        assertFalse(StepRetry.isTransient(failure), failure.getClass().getSimpleName());
+    }
+}